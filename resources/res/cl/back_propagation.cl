@@ -1,10 +1,38 @@
-
+//Optimizers: 0 gradient, 1 momentum, 2 nesterov, 3 adam
+//velocities hold first moment for adam, moments hold second moment and steps number of updates
 kernel void updateWeights(
     const float ni,
     global float *gradients,
-    global float *weights
+    global float *weights,
+    const int optimizer,
+    const float momentum,
+    const float beta1,
+    const float beta2,
+    const float epsilon,
+    global float *velocities,
+    global float *moments,
+    global float *steps
 ) {
     int id = get_global_id(0);
-    weights[id] += ni * gradients[id];
+    float g = gradients[id];
     gradients[id] = 0;
-}
\ No newline at end of file
+
+    if (1 == optimizer) {
+        velocities[id] = momentum * velocities[id] + ni * g;
+        weights[id] += velocities[id];
+    } else if (2 == optimizer) {
+        float previous = velocities[id];
+        velocities[id] = momentum * previous + ni * g;
+        weights[id] += (1 + momentum) * velocities[id] - momentum * previous;
+    } else if (3 == optimizer) {
+        float t = steps[id] + 1;
+        steps[id] = t;
+        velocities[id] = beta1 * velocities[id] + (1 - beta1) * g;
+        moments[id] = beta2 * moments[id] + (1 - beta2) * g * g;
+        float m = velocities[id] / (1 - pow(beta1, t));
+        float v = moments[id] / (1 - pow(beta2, t));
+        weights[id] += ni * m / (sqrt(v) + epsilon);
+    } else {
+        weights[id] += ni * g;
+    }
+}
@@ -7,7 +7,10 @@ kernel void updateWeights(
     global float *gradients,
     global float *previousGradients,
     global float *deltas,
-    global float *weights
+    global float *weights,
+    const int variant,
+    global const float *totalError,
+    global float *previousSteps
 ) {
     int id = get_global_id(0);
 
@@ -15,8 +18,6 @@ kernel void updateWeights(
 
     float gradientsMultiplied = currentGradient * previousGradients[id];
 
-    previousGradients[id] = currentGradient;
-
     float currentDelta = deltas[id];
 
     currentDelta *= (gradientsMultiplied > 0) * kPlus + (gradientsMultiplied < 0) * kMinus + (0 == gradientsMultiplied);
@@ -25,8 +26,24 @@ kernel void updateWeights(
 
     deltas[id] = currentDelta;
 
-    weights[id] += (-(currentGradient > 0) + (currentGradient < 0)) * currentDelta;
-
     gradients[id] = 0;
 
+    //iRPROP- and iRPROP+ skip the step after sign change, iRPROP+ also reverts previous step if error increased
+    if (0 != variant && gradientsMultiplied < 0) {
+        if (2 == variant && totalError[0] > totalError[1]) {
+            weights[id] -= previousSteps[id];
+        }
+        previousSteps[id] = 0;
+        previousGradients[id] = 0;
+        return;
+    }
+
+    previousGradients[id] = currentGradient;
+
+    float step = (-(currentGradient > 0) + (currentGradient < 0)) * currentDelta;
+
+    weights[id] += step;
+
+    previousSteps[id] = step;
+
 }
\ No newline at end of file
@@ -10,6 +10,27 @@ float transferFunctionTanH(const float value) {
     return tanh(value);
 }
 
+/**
+ * Lookup table with linear interpolation
+ * @var params [low, 1 / step, n, value0, ..., valueN-1]
+ */
+float transferFunctionTable(const float value, global const float *params) {
+    int n = (int) params[2];
+    float position = (value - params[0]) * params[1];
+
+    if (position <= 0) {
+        return params[3];
+    }
+
+    if (position >= n - 1) {
+        return params[n + 2];
+    }
+
+    int index = (int) position;
+
+    return params[index + 3] + (params[index + 4] - params[index + 3]) * (position - index);
+}
+
 float computeTransfer(const float raw, const int transferFunctionId, global const float *params) {
     switch (transferFunctionId) {
         case 1 :
@@ -18,35 +39,29 @@ float computeTransfer(const float raw, const int transferFunctionId, global cons
             return transferFunctionSigmoid(raw);
         case 3 :
             return transferFunctionLinear(raw, params[0]);
+        case 4 :
+        case 5 :
+            return transferFunctionTable(raw, params);
         default :
             return 0;
     }
 
 }
 
-float transferFunctionLinearDerivative(const float value, const float param) {
-    return param;
-}
-
-float transferFunctionSigmoidDerivative(const float value) {
-    float v = transferFunctionSigmoid(value);
-    return (1 - v) * v;
-}
-
-float transferFunctionTanHDerivative(const float value) {
-    float v = transferFunctionTanH(value);
-    return 1 - v * v;
-}
-
-float computeTransferDerivative(const float raw, const int transferFunctionId, global const float *params) {
+/**
+ * Derivative is calculated from output of transfer function so raw outputs are not needed
+ */
+float computeTransferDerivative(const float output, const int transferFunctionId, global const float *params) {
 
     switch (transferFunctionId) {
         case 1 :
-            return transferFunctionTanHDerivative(raw);
+        case 4 :
+            return 1 - output * output;
         case 2 :
-            return transferFunctionSigmoidDerivative(raw);
+        case 5 :
+            return (1 - output) * output;
         case 3 :
-            return transferFunctionLinearDerivative(raw, params[0]);
+            return params[0];
         default :
             return 0;
     }
@@ -67,8 +82,8 @@ float computeTransferDerivative(const float raw, const int transferFunctionId, g
  * @var transferFunctionParamsOffsets For each transfer function offset for it's params in respect to previous layer
  * @var dataSets array with all elements to evaluate
  * @var weights Array with all weights
- * @var rawOutputs Array with all neuron outputs without transfer function applied
  * @var outputs Array with all neuron outputs with transfer function applied
+ * @var multiplicities Number of identical samples each data set row stands for
  */
 kernel void evaluate(
     const int isBiased,
@@ -83,19 +98,19 @@ kernel void evaluate(
     global const int *transferFunctionParamsOffsets,
     global const float *dataSets,
     global const float *weights,
-    global float *rawOutputs,
     global float *outputs,
-    global float *errors
+    global float *errors,
+    global const int *indices,
+    global const float *multiplicities
 ) {
 
-    int id = get_global_id(0);
+    int id = indices[get_global_id(0)];
 
     int outputOffset = id * numberOfNeurons;
     int dataSetOffset = id * (layerDimensions[0] + layerDimensions[numberOfLayers - 1]);
 
     for (int i = 0; i < layerDimensions[0]; i++) {
         outputs[outputOffset + i] = dataSets[dataSetOffset + i];
-        rawOutputs[outputOffset + i] = dataSets[dataSetOffset + i];
     }
 
     //For each layer
@@ -118,8 +133,6 @@ kernel void evaluate(
                 sum += weights[initialWeightsOffset + k] * outputs[initialNeuronOffset + k];
             }
 
-            rawOutputs[myLevelNeuronOffset + j] = sum;
-
             float ret = computeTransfer(
                 sum, transferFunctions[i - 1],
                 transferFunctionParams + transferFunctionParamsOffsets[i - 1]
@@ -136,7 +149,7 @@ kernel void evaluate(
         for (int i = 0, outputNeuronsCount = layerDimensions[numberOfLayers - 1]; i < outputNeuronsCount; i++) {
             sum += (outputs[startOffset + i] - dataSets[dataSetOffset + i]) * (outputs[startOffset + i] - dataSets[dataSetOffset + i]);
         }
-        errors[id] = sum;
+        errors[id] = sum * multiplicities[id];
     }
 }
 
@@ -152,22 +165,24 @@ kernel void calculateLayerError(
     global const int *transferFunctionParamsOffsets,
     global const float *dataSets,
     global const float *weights,
-    global const float *rawOutputs,
     global const float *outputs,
-    global float *neuronErrors
+    global float *neuronErrors,
+    global const int *indices,
+    global const float *multiplicities
 ) {
 
-    int id = get_global_id(0);
+    int id = indices[get_global_id(0)];
 
     int layerId = numberOfLayers - 1;
     int outputOffsetStart = id * numberOfNeurons + neuronOffsets[layerId];
     int dataSetOffset = id * (layerDimensions[0] + layerDimensions[layerId]) + layerDimensions[0];
 
+    //Scaling output errors by multiplicity scales every gradient of the sample
     for (int i = 0, limit = layerDimensions[numberOfLayers - 1]; i < limit; i++) {
         neuronErrors[outputOffsetStart + i] = computeTransferDerivative(
-            rawOutputs[outputOffsetStart + i], transferFunctions[layerId - 1],
+            outputs[outputOffsetStart + i], transferFunctions[layerId - 1],
             transferFunctionParams + transferFunctionParamsOffsets[layerId - 1]
-        ) * (dataSets[dataSetOffset + i] - outputs[outputOffsetStart + i]);
+        ) * (dataSets[dataSetOffset + i] - outputs[outputOffsetStart + i]) * multiplicities[id];
     }
 
     //For each hidden layer
@@ -187,7 +202,7 @@ kernel void calculateLayerError(
             }
 
             neuronErrors[myLevelOutputOffsetStart + j] = computeTransferDerivative(
-                rawOutputs[myLevelOutputOffsetStart + j], transferFunctions[i - 1],
+                outputs[myLevelOutputOffsetStart + j], transferFunctions[i - 1],
                 transferFunctionParams + transferFunctionParamsOffsets[i - 1]
             ) * sum;
         }
@@ -226,13 +241,15 @@ kernel void calculateGradients(
     global const int *layerDimensions,
     global const float *outputs,
     global const float *neuronErrors,
-    global float *gradients
+    global float *gradients,
+    global const int *indices
 ) {
 
-    int id = get_global_id(0);
+    int id = indices[get_global_id(0)];
 
     int initialNeuronOffset = numberOfNeurons * id;
-    int initialWeightsOffset = numberOfWeights * id;
+    //Gradients are stored by position in batch so that each batch can be summed separately
+    int initialWeightsOffset = numberOfWeights * get_global_id(0);
 
     for (int i = 1; i < numberOfLayers; i++) {
 
@@ -255,10 +272,12 @@ kernel void calculateGradients(
 
 }
 
+//Errors are already weighted by multiplicity, sampleCount is sum of multiplicities
 kernel void sumErrors(
     const int size,
     const global float *errors,
-    global float *totalError
+    global float *totalError,
+    const int sampleCount
 ) {
 
     float sum = 0;
@@ -267,17 +286,23 @@ kernel void sumErrors(
         sum += errors[i];
     }
 
-    totalError[0] = sum / (size << 1);
+    //Error of previous weights is kept for update rules that revert steps
+    totalError[1] = totalError[0];
+    totalError[0] = sum / (sampleCount << 1);
 
 }
 
+//Sums gradients of positions [batchOffset, batchOffset + batchSize) into position 0,
+//which is cleared by updateWeights when it is not part of the batch
 kernel void sumGradients(
     const int numberOfWeights,
-    const int dataSetSize,
+    const int batchOffset,
+    const int batchSize,
     global float *gradients
 ) {
     int id = get_global_id(0);
-    for (int i = 1, index = numberOfWeights; i < dataSetSize; i++, index += numberOfWeights) {
+    int start = batchOffset > 0 ? batchOffset : 1;
+    for (int i = start, index = numberOfWeights * start; i < batchOffset + batchSize; i++, index += numberOfWeights) {
         gradients[id] += gradients[id + index];
         gradients[id + index] = 0;
     }
@@ -5,12 +5,16 @@ import com.martiansoftware.jsap.JSAP;
 import com.martiansoftware.jsap.JSAPResult;
 import com.msuflaj.encoder.Encoder;
 import com.msuflaj.encoder.EquilateralEncoder;
-import com.msuflaj.network.FullyConnectedForwardNetwork;
+import com.msuflaj.network.FlatForwardNetwork;
+import com.msuflaj.network.FloatForwardNetwork;
 import com.msuflaj.network.Network;
 import com.msuflaj.network.NetworkException;
+import com.msuflaj.network.QuantizedNetwork;
+import com.msuflaj.network.SparseNetwork;
+import com.msuflaj.storage.FileQuantizedStorage;
+import com.msuflaj.storage.FileSparseStorage;
 import com.msuflaj.storage.FileWieghtsStorage;
 import com.msuflaj.storage.WeightsStorage;
-import com.msuflaj.transfer.TanHFunction;
 import com.msuflaj.transfer.TransferFunction;
 
 import javax.swing.*;
@@ -251,60 +255,25 @@ public class Display {
         Properties props = new Properties();
         props.load(new BufferedReader(new FileReader(configFile)));
 
-        String dimensions = props.getProperty("network.dimensions");
+        int[] dimensionsConverted = Train.parseDimensions(props);
 
-        if (null == dimensions) {
-            error("network.dimensions");
-            return ;
-        }
-
-        String[] parts = dimensions.split("x|X");
-
-        int[] dimensionsConverted = new int[parts.length];
-
-        if (parts.length < 2) {
-            error("There need to be at least input and output layer", false);
-            return;
-        }
-
-        for (int i = 0; i < parts.length; i++) {
-            try {
-                dimensionsConverted[i] = Integer.parseInt(parts[i]);
-                if (dimensionsConverted[i] < 1) {
-                    error("Layer " + (i + 1) + " has neuron count less than 0", false);
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                error("network.dimensions");
-                return ;
-            }
-        }
-
-        TransferFunction f = new TanHFunction();
-
-        TransferFunction[] functions = new TransferFunction[dimensionsConverted.length - 1];
-
-        for (int i = 0; i < functions.length; i++) {
-            functions[i] = f;
-        }
+        TransferFunction[] functions = Train.createTransferFunctions(props, dimensionsConverted.length - 1);
 
-        final Network network = new FullyConnectedForwardNetwork(dimensionsConverted, functions, true);
+        String model = props.getProperty("display.network", "weights").toLowerCase();
 
-        String weightsFile = props.getProperty("network.weights");
+        final Network network;
 
-        if (null == weightsFile) {
-            error("network.weights");
+        if ("weights".equals(model)) {
+            network = loadWeights(props, dimensionsConverted, functions);
+        } else if ("pruned".equals(model)) {
+            network = loadPruned(props, dimensionsConverted, functions);
+        } else if ("quantized".equals(model)) {
+            network = loadQuantized(props, dimensionsConverted, functions);
+        } else {
+            error("display.network");
             return;
         }
 
-        File weights = new File(weightsFile);
-
-        WeightsStorage storage = new FileWieghtsStorage(weights);
-        if (!storage.load(network)) {
-            error("Unable to load weights", false);
-            return ;
-        }
-
         String samplerString = props.getProperty("display.sampler");
 
         if (null == samplerString) {
@@ -396,6 +365,76 @@ public class Display {
 
     }
 
+    private static Network loadWeights(Properties props, int[] dimensions, TransferFunction[] functions) throws NetworkException {
+        String precision = props.getProperty("network.precision", "double").toLowerCase();
+
+        Network network;
+
+        if ("float".equals(precision)) {
+            network = new FloatForwardNetwork(dimensions, functions, true);
+        } else if ("double".equals(precision)) {
+            network = new FlatForwardNetwork(dimensions, functions, true);
+        } else {
+            error("network.precision");
+            return null;
+        }
+
+        String weightsFile = props.getProperty("network.weights");
+
+        if (null == weightsFile) {
+            error("network.weights");
+            return null;
+        }
+
+        WeightsStorage storage = new FileWieghtsStorage(new File(weightsFile));
+        if (!storage.load(network)) {
+            error("Unable to load weights", false);
+            return null;
+        }
+
+        return network;
+    }
+
+    private static Network loadPruned(Properties props, int[] dimensions, TransferFunction[] functions) throws NetworkException {
+        SparseNetwork network = new SparseNetwork(dimensions, functions, true);
+
+        String prunedFile = props.getProperty("network.pruned");
+
+        if (null == prunedFile) {
+            error("network.pruned");
+            return null;
+        }
+
+        if (!new FileSparseStorage(new File(prunedFile)).load(network)) {
+            error("Unable to load pruned network", false);
+            return null;
+        }
+
+        return network;
+    }
+
+    private static Network loadQuantized(Properties props, int[] dimensions, TransferFunction[] functions) throws NetworkException {
+        // Scales are placeholders until they are read from file
+        double[] inputScales = new double[dimensions.length - 1];
+        Arrays.fill(inputScales, 1);
+
+        QuantizedNetwork network = new QuantizedNetwork(dimensions, functions, true, inputScales);
+
+        String quantizedFile = props.getProperty("network.quantized");
+
+        if (null == quantizedFile) {
+            error("network.quantized");
+            return null;
+        }
+
+        if (!new FileQuantizedStorage(new File(quantizedFile)).load(network)) {
+            error("Unable to load quantized network", false);
+            return null;
+        }
+
+        return network;
+    }
+
     private static void error(String error, boolean useKey) {
         if (useKey) {
             System.err.println("Invalid value for config key " + error);
@@ -0,0 +1,192 @@
+package com.msuflaj;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPResult;
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.evaluator.ClassificationEvaluator;
+import com.msuflaj.evaluator.Evaluator;
+import com.msuflaj.logger.ConsoleLogger;
+import com.msuflaj.network.FullyConnectedForwardNetwork;
+import com.msuflaj.network.SparseNetwork;
+import com.msuflaj.pruning.Pruner;
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.storage.FileSparseStorage;
+import com.msuflaj.storage.FileWieghtsStorage;
+import com.msuflaj.storage.WeightsStorage;
+import com.msuflaj.trainer.PropagationTrainer;
+import com.msuflaj.trainer.Trainer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.text.DecimalFormat;
+import java.util.Properties;
+
+public class Prune {
+
+    public static void main(String[] args) throws Exception {
+
+        JSAP parser = new JSAP();
+
+        FlaggedOption opt = new FlaggedOption("config")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setDefault("conf.properties").setShortFlag('c')
+                .setLongFlag("config");
+
+        parser.registerParameter(opt);
+
+        JSAPResult config = parser.parse(args);
+
+        if (!config.success()) {
+            printUsage(parser);
+        }
+
+        File configFile = new File(config.getString("config"));
+
+        Properties props = new Properties();
+        props.load(new BufferedReader(new FileReader(configFile)));
+
+        run(props);
+
+    }
+
+    private static void run(Properties props) throws Exception {
+
+        int[] dimensions = Train.parseDimensions(props);
+
+        FullyConnectedForwardNetwork network = new FullyConnectedForwardNetwork(dimensions, Train.createTransferFunctions(props, dimensions.length - 1), true);
+
+        String weightsFile = props.getProperty("network.weights");
+
+        if (null == weightsFile) {
+            error("network.weights");
+            return;
+        }
+
+        WeightsStorage storage = new FileWieghtsStorage(new File(weightsFile));
+
+        if (!storage.load(network)) {
+            error("Unable to load weights", false);
+            return ;
+        }
+
+        DataSet dataSet = Train.loadDataSet(props, dimensions[0], dimensions[dimensions.length - 1] + 1);
+
+        Pruner pruner = new Pruner();
+        boolean[] mask;
+
+        try {
+            if (null != props.getProperty("prune.sparsity")) {
+                mask = pruner.bySparsity(network, Double.parseDouble(props.getProperty("prune.sparsity")));
+            } else if (null != props.getProperty("prune.threshold")) {
+                mask = pruner.byThreshold(network, Double.parseDouble(props.getProperty("prune.threshold")));
+            } else {
+                error("Either prune.sparsity or prune.threshold must be set", false);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            error("Invalid value for prune.sparsity or prune.threshold", false);
+            return;
+        }
+
+        Evaluator evaluator = new ClassificationEvaluator();
+        DecimalFormat format = new DecimalFormat("0.0000");
+
+        System.out.println("Classification error before pruning: " + format.format(evaluator.evaluate(network, dataSet)));
+
+        pruner.apply(network, mask);
+
+        System.out.println("Classification error after pruning: " + format.format(evaluator.evaluate(network, dataSet)));
+
+        int temp;
+
+        try {
+            temp = Integer.parseInt(props.getProperty("prune.iterations", "0"));
+        } catch (NumberFormatException e) {
+            error("prune.iterations");
+            return ;
+        }
+
+        if (temp < 0) {
+            error("prune.iterations");
+            return ;
+        }
+
+        final int numberOfIterations = temp;
+
+        if (numberOfIterations > 0) {
+            PropagationTrainer trainer = createTrainer(props);
+
+            Statistics statistics = new Statistics();
+            statistics.registerListener(new ConsoleLogger(Math.max(1, numberOfIterations / 10)), Statistics.ERROR | Statistics.FINISH | Statistics.START);
+
+            pruner.fineTune(network, dataSet, trainer, mask, new Trainer.StopCondition() {
+                @Override
+                public boolean isConditionMet(int iteration, double error) {
+                    return iteration < numberOfIterations;
+                }
+            }, statistics);
+
+            System.out.println("Classification error after fine-tuning: " + format.format(evaluator.evaluate(network, dataSet)));
+        }
+
+        SparseNetwork sparse = pruner.compress(network);
+
+        System.out.println("Non-zero weights: " + sparse.getNonZerosCount() + " of " + sparse.getWeightsCount());
+
+        String prunedFile = props.getProperty("network.pruned");
+
+        if (null == prunedFile) {
+            error("network.pruned");
+            return;
+        }
+
+        if (!new FileSparseStorage(new File(prunedFile)).store(sparse)) {
+            error("Unable to store pruned network", false);
+        }
+
+    }
+
+    /**
+     * Fine-tuning masks weights of network in memory, so it always runs regular implementation
+     */
+    private static PropagationTrainer createTrainer(Properties props) {
+        Properties copy = new Properties();
+        copy.putAll(props);
+        copy.setProperty("train.implementation", "regular");
+        copy.setProperty("network.precision", "double");
+
+        Trainer trainer = Train.createTrainer(copy);
+
+        if (!(trainer instanceof PropagationTrainer)) {
+            error("Fine-tuning is supported only by rprop, irprop-, irprop+ and backprop algorithms", false);
+            return null;
+        }
+
+        return (PropagationTrainer) trainer;
+    }
+
+    private static void error(String error, boolean useKey) {
+        if (useKey) {
+            System.err.println("Invalid value for config key " + error);
+        } else {
+            System.err.println(error);
+        }
+        System.exit(2);
+    }
+
+    private static void error(String error) {
+        error(error, true);
+    }
+
+    private static void printUsage(JSAP parser) {
+        System.err.println();
+        System.err.println("Usage: java -cp:lib/ " + Prune.class.getName());
+        System.err.println("                " + parser.getUsage());
+        System.err.println();
+        System.err.println(parser.getHelp());
+        System.exit(1);
+    }
+
+}
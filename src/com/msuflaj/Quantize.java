@@ -0,0 +1,132 @@
+package com.msuflaj;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPResult;
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.evaluator.ClassificationEvaluator;
+import com.msuflaj.evaluator.Evaluator;
+import com.msuflaj.network.FlatForwardNetwork;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.QuantizedNetwork;
+import com.msuflaj.quantization.Quantizer;
+import com.msuflaj.storage.FileQuantizedStorage;
+import com.msuflaj.storage.FileWieghtsStorage;
+import com.msuflaj.storage.WeightsStorage;
+import com.msuflaj.transfer.TransferFunction;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.text.DecimalFormat;
+import java.util.Properties;
+
+public class Quantize {
+
+    public static void main(String[] args) throws Exception {
+
+        JSAP parser = new JSAP();
+
+        FlaggedOption opt = new FlaggedOption("config")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setDefault("conf.properties").setShortFlag('c')
+                .setLongFlag("config");
+
+        parser.registerParameter(opt);
+
+        JSAPResult config = parser.parse(args);
+
+        if (!config.success()) {
+            printUsage(parser);
+        }
+
+        File configFile = new File(config.getString("config"));
+
+        Properties props = new Properties();
+        props.load(new BufferedReader(new FileReader(configFile)));
+
+        run(props);
+
+    }
+
+    private static void run(Properties props) throws Exception {
+
+        int[] dimensions = Train.parseDimensions(props);
+
+        TransferFunction[] functions = Train.createTransferFunctions(props, dimensions.length - 1);
+
+        Network network = new FlatForwardNetwork(dimensions, functions, true);
+
+        String weightsFile = props.getProperty("network.weights");
+
+        if (null == weightsFile) {
+            error("network.weights");
+            return;
+        }
+
+        WeightsStorage storage = new FileWieghtsStorage(new File(weightsFile));
+
+        if (!storage.load(network)) {
+            error("Unable to load weights", false);
+            return ;
+        }
+
+        // Calibration data defaults to training data
+        Properties copy = new Properties();
+        copy.putAll(props);
+
+        if (null != props.getProperty("quantize.data")) {
+            copy.setProperty("train.data", props.getProperty("quantize.data"));
+        }
+
+        DataSet dataSet = Train.loadDataSet(copy, dimensions[0], dimensions[dimensions.length - 1] + 1);
+
+        QuantizedNetwork quantized = new Quantizer().quantize(network, dataSet);
+
+        Evaluator evaluator = new ClassificationEvaluator();
+
+        double before = evaluator.evaluate(network, dataSet);
+        double after = evaluator.evaluate(quantized, dataSet);
+
+        DecimalFormat format = new DecimalFormat("0.0000");
+
+        System.out.println("Classification error before quantization: " + format.format(before));
+        System.out.println("Classification error after quantization: " + format.format(after));
+        System.out.println("Accuracy drop: " + format.format(after - before));
+
+        String quantizedFile = props.getProperty("network.quantized");
+
+        if (null == quantizedFile) {
+            error("network.quantized");
+            return;
+        }
+
+        if (!new FileQuantizedStorage(new File(quantizedFile)).store(quantized)) {
+            error("Unable to store quantized network", false);
+        }
+
+    }
+
+    private static void error(String error, boolean useKey) {
+        if (useKey) {
+            System.err.println("Invalid value for config key " + error);
+        } else {
+            System.err.println(error);
+        }
+        System.exit(2);
+    }
+
+    private static void error(String error) {
+        error(error, true);
+    }
+
+    private static void printUsage(JSAP parser) {
+        System.err.println();
+        System.err.println("Usage: java -cp:lib/ " + Quantize.class.getName());
+        System.err.println("                " + parser.getUsage());
+        System.err.println();
+        System.err.println(parser.getHelp());
+        System.exit(1);
+    }
+
+}
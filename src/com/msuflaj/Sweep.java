@@ -0,0 +1,575 @@
+package com.msuflaj;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPResult;
+import com.msuflaj.condition.CompositeCondition;
+import com.msuflaj.condition.IterationsCondition;
+import com.msuflaj.condition.PatienceCondition;
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.WarmStartInitializer;
+import com.msuflaj.network.Network;
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.storage.FileWieghtsStorage;
+import com.msuflaj.trainer.*;
+import com.msuflaj.util.Pair;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains many configurations derived from one config file on a shared data set. Parameters
+ * are swept by sweep.grid.* and sweep.random.* keys, runs are trained concurrently in rungs
+ * of successive halving, only best part of runs continues to next rung.
+ */
+public class Sweep {
+
+    private static final Comparator<Run> RANKING = new Comparator<Run>() {
+        @Override
+        public int compare(Run a, Run b) {
+            if (a.rung != b.rung) {
+                return b.rung - a.rung;
+            }
+            return Double.compare(a.error, b.error);
+        }
+    };
+
+    /**
+     * One configuration, each call trains it for given number of iterations continuing
+     * from best weights reached in previous calls. Error, stored weights and weights that
+     * next call starts from all belong to the same best state.
+     */
+    private static class Run implements Callable<Run> {
+
+        private final int id;
+
+        private final String description;
+
+        private final Properties props;
+
+        private final Network network;
+
+        private final Trainer trainer;
+
+        private final DataSet dataSet;
+
+        private final boolean isValidated;
+
+        private final Statistics statistics = new Statistics();
+
+        /**
+         * Validation patience, null when disabled
+         */
+        private final PatienceCondition patience;
+
+        /**
+         * Free OpenCL device indices shared by all runs, null when trainer does not use OpenCL
+         */
+        private BlockingQueue<Integer> devices;
+
+        private int iterations;
+
+        private int rung;
+
+        private double error = Double.MAX_VALUE;
+
+        private double[] bestWeights;
+
+        /**
+         * Set when patience ran out, such run is not trained in later rungs
+         */
+        private boolean isStopped;
+
+        private boolean isFailed;
+
+        private long time;
+
+        public Run(int id, String description, Properties props, Network network, Trainer trainer, DataSet dataSet, boolean isValidated, int patience) {
+            this.id = id;
+            this.description = description;
+            this.props = props;
+            this.network = network;
+            this.trainer = trainer;
+            this.dataSet = dataSet;
+            this.isValidated = isValidated;
+
+            if (patience > 0) {
+                this.patience = new PatienceCondition(patience);
+                statistics.registerListener(this.patience, Statistics.VALIDATION_ERROR | Statistics.BEST_VALIDATION_ERROR);
+            } else {
+                this.patience = null;
+            }
+        }
+
+        @Override
+        public Run call() {
+            if (isStopped) {
+                return this;
+            }
+
+            long start = System.currentTimeMillis();
+            Integer device = null;
+
+            try {
+                if (null != devices) {
+                    device = devices.take();
+                    ((OpenCLPropagationTrainer) trainer).setDeviceIndex(device);
+                }
+
+                List<Trainer.StopCondition> conditions = new ArrayList<>();
+                conditions.add(new IterationsCondition(iterations));
+
+                if (null != patience) {
+                    conditions.add(patience);
+                }
+
+                conditions.addAll(Train.createConditions(props));
+
+                double previousValidationError = statistics.getBestValidationError();
+
+                double trainError = trainer.train(network, dataSet, new CompositeCondition(conditions.toArray(new Trainer.StopCondition[conditions.size()])), statistics);
+
+                // Trainers leave best weights of this call in network, validation error is only
+                // known for them when they also improved best validation error of the run
+                double callError = trainError;
+
+                if (isValidated) {
+                    callError = statistics.getBestValidationError() < previousValidationError ? statistics.getBestValidationError() : Double.MAX_VALUE;
+                }
+
+                if (callError < error) {
+                    error = callError;
+                    bestWeights = network.getWeights();
+                }
+
+                // Step sizes of RPROP belong to last iterate, so they are not resumed with best weights
+                if (null != bestWeights) {
+                    ((InitializableTrainer) trainer).setInitializer(new WarmStartInitializer(bestWeights));
+                }
+
+                // Condition holds until patience runs out, iteration other than 0 does not reset it
+                if (null != patience && !patience.isConditionMet(1, trainError)) {
+                    isStopped = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                if (null != device) {
+                    devices.add(device);
+                }
+                time += System.currentTimeMillis() - start;
+            }
+
+            return this;
+        }
+
+        private void fail(Exception e) {
+            isFailed = true;
+            error = Double.MAX_VALUE;
+            System.err.println("Run " + id + " failed: " + e);
+        }
+
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        JSAP parser = new JSAP();
+
+        FlaggedOption opt = new FlaggedOption("config")
+                .setStringParser(JSAP.STRING_PARSER)
+                .setDefault("conf.properties").setShortFlag('c')
+                .setLongFlag("config");
+
+        parser.registerParameter(opt);
+
+        JSAPResult config = parser.parse(args);
+
+        if (!config.success()) {
+            printUsage(parser);
+        }
+
+        File configFile = new File(config.getString("config"));
+
+        Properties props = new Properties();
+        props.load(new BufferedReader(new FileReader(configFile)));
+
+        run(props);
+
+    }
+
+    private static void run(Properties props) throws Exception {
+
+        int threads = Train.parseInt(props, "sweep.parallelism", "0");
+
+        if (threads < 0) {
+            error("Parallelism must be greater or equal to 0", false);
+            return ;
+        }
+
+        if (0 == threads) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        // Runs already share cores, nested parallelism would oversubscribe them
+        if (threads > 1) {
+            props.setProperty("train.parallelism", "1");
+        }
+
+        if (null == props.getProperty("train.iterations")) {
+            error("train.iterations");
+            return ;
+        }
+
+        int iterations = Train.parseInt(props, "train.iterations", "0");
+        int rungIterations = Train.parseInt(props, "sweep.halving.iterations", "0");
+        int eta = Train.parseInt(props, "sweep.halving.eta", "3");
+
+        if (iterations < 1 || rungIterations < 0) {
+            error("Iterations must be greater than 0", false);
+            return ;
+        }
+
+        if (eta < 2) {
+            error("sweep.halving.eta");
+            return ;
+        }
+
+        if (0 == rungIterations) {
+            rungIterations = iterations;
+        }
+
+        String weightsFile = props.getProperty("network.weights");
+
+        if (null == weightsFile) {
+            error("network.weights");
+            return ;
+        }
+
+        int[] dimensions = Train.parseDimensions(props);
+
+        DataSet dataSet = Train.loadDataSet(props, dimensions[0], dimensions[dimensions.length - 1] + 1);
+
+        List<Run> runs = new ArrayList<>();
+
+        // Everything is created up front so invalid configurations stop sweep before training
+        for (Pair<Properties, String> config : createConfigs(props)) {
+            int[] d = Train.parseDimensions(config.first);
+
+            if (d[0] != dimensions[0] || d[d.length - 1] != dimensions[dimensions.length - 1]) {
+                error("Swept dimensions must keep input and output layers, data set is shared", false);
+                return ;
+            }
+
+            if ("warm".equalsIgnoreCase(config.first.getProperty("train.weights.init", "uniform").trim())) {
+                error("Warm start is not supported by sweep", false);
+                return ;
+            }
+
+            Network network = Train.createNetwork(config.first, d);
+            Trainer trainer = Train.createTrainer(config.first);
+            Pair<DataSet, Validation> split = Train.splitValidation(config.first, dataSet);
+
+            if (null != split.second) {
+                ((ValidatedTrainer) trainer).setValidation(split.second);
+            }
+
+            Train.createConditions(config.first);
+
+            int patience = Train.parseInt(config.first, "train.validation.patience", "0");
+
+            if (patience < 0) {
+                error("Patience must be greater or equal to 0", false);
+                return ;
+            }
+
+            runs.add(new Run(runs.size() + 1, config.second, config.first, network, trainer, split.first, null != split.second,
+                    null == split.second ? 0 : patience));
+        }
+
+        BlockingQueue<Integer> devices = null;
+
+        for (Run run : runs) {
+            if (!(run.trainer instanceof OpenCLPropagationTrainer)) {
+                continue;
+            }
+
+            if (null == devices) {
+                int count = OpenCLPropagationTrainer.getDeviceCount(Train.getOpenCLDevice(props));
+
+                if (0 == count) {
+                    error("No OpenCL device of type " + props.getProperty("train.implementation.opencl.device") + " found", false);
+                    return ;
+                }
+
+                devices = new ArrayBlockingQueue<>(count);
+
+                for (int i = 0; i < count; i++) {
+                    devices.add(i);
+                }
+            }
+
+            run.devices = devices;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, runs.size()));
+
+        List<Run> survivors = new ArrayList<>(runs);
+
+        try {
+            for (int rung = 0, done = 0, budget = rungIterations; ; rung++) {
+
+                int target = Math.min(budget, iterations);
+
+                System.out.println("Rung " + (rung + 1) + ": " + survivors.size() + " runs, " + target + " iterations");
+
+                for (Run run : survivors) {
+                    run.iterations = target - done;
+                    run.rung = rung;
+                }
+
+                for (Future<Run> future : pool.invokeAll(survivors)) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        error("An error occurred during sweep", false);
+                        return ;
+                    }
+                }
+
+                done = target;
+
+                Collections.sort(survivors, RANKING);
+
+                for (Run run : survivors) {
+                    System.out.println("Run " + run.id + " error: " + (run.isFailed ? "failed" : Double.toString(run.error)) + " (" + run.description + ")");
+                }
+
+                if (target >= iterations || 1 == survivors.size()) {
+                    break;
+                }
+
+                survivors = new ArrayList<>(survivors.subList(0, Math.max(1, survivors.size() / eta)));
+                budget = (int) Math.min((long) budget * eta, iterations);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Collections.sort(runs, RANKING);
+
+        writeLeaderboard(new File(props.getProperty("sweep.leaderboard", "leaderboard.csv")), runs);
+
+        Run best = runs.get(0);
+
+        if (best.isFailed) {
+            error("All runs failed", false);
+            return ;
+        }
+
+        System.out.println("Best run " + best.id + " error: " + best.error + " (" + best.description + ")");
+
+        if (null != best.bestWeights) {
+            best.network.setWeights(best.bestWeights);
+        }
+
+        if (!new FileWieghtsStorage(new File(weightsFile)).store(best.network)) {
+            error("Unable to store weights of best run", false);
+        }
+
+    }
+
+    /**
+     * @return Copy of props for each point of grid and each random sample, with description of swept values
+     */
+    private static List<Pair<Properties, String>> createConfigs(Properties props) {
+
+        List<String> gridKeys = new ArrayList<>();
+        List<String[]> gridValues = new ArrayList<>();
+        List<String> randomKeys = new ArrayList<>();
+        List<String[]> randomRanges = new ArrayList<>();
+
+        for (String name : new TreeSet<>(props.stringPropertyNames())) {
+            String key;
+
+            if (name.startsWith("sweep.grid.")) {
+                key = name.substring("sweep.grid.".length());
+                String[] values = props.getProperty(name).split(",");
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = values[i].trim();
+                }
+                gridKeys.add(key);
+                gridValues.add(values);
+            } else if (name.startsWith("sweep.random.")) {
+                key = name.substring("sweep.random.".length());
+                String[] range = props.getProperty(name).split(":");
+                if (2 != range.length) {
+                    error(name);
+                    return null;
+                }
+                randomKeys.add(key);
+                randomRanges.add(new String[] { range[0].trim(), range[1].trim() });
+            } else {
+                continue;
+            }
+
+            if ("train.data".equals(key) || "train.deduplicate".equals(key)) {
+                error("Data set is loaded once and can not be swept", false);
+                return null;
+            }
+        }
+
+        if (gridKeys.isEmpty() && randomKeys.isEmpty()) {
+            error("No swept parameters, set sweep.grid.* or sweep.random.* keys", false);
+            return null;
+        }
+
+        int samples = randomKeys.isEmpty() ? 1 : Train.parseInt(props, "sweep.samples", "10");
+
+        if (samples < 1) {
+            error("sweep.samples");
+            return null;
+        }
+
+        String seed = props.getProperty("sweep.seed");
+        Random random;
+
+        try {
+            random = null == seed ? new Random() : new Random(Long.parseLong(seed.trim()));
+        } catch (NumberFormatException e) {
+            error("sweep.seed");
+            return null;
+        }
+
+        int points = 1;
+
+        for (String[] values : gridValues) {
+            points *= values.length;
+        }
+
+        List<Pair<Properties, String>> configs = new ArrayList<>(points * samples);
+
+        for (int point = 0; point < points; point++) {
+            for (int sample = 0; sample < samples; sample++) {
+
+                Properties config = new Properties();
+                config.putAll(props);
+
+                StringBuilder description = new StringBuilder();
+
+                for (int k = 0, rest = point; k < gridKeys.size(); k++) {
+                    String[] values = gridValues.get(k);
+                    set(config, description, gridKeys.get(k), values[rest % values.length]);
+                    rest /= values.length;
+                }
+
+                for (int k = 0; k < randomKeys.size(); k++) {
+                    set(config, description, randomKeys.get(k), draw(randomKeys.get(k), randomRanges.get(k), random));
+                }
+
+                configs.add(new Pair<>(config, description.toString()));
+            }
+        }
+
+        return configs;
+    }
+
+    private static void set(Properties config, StringBuilder description, String key, String value) {
+        config.setProperty(key, value);
+        if (description.length() > 0) {
+            description.append("; ");
+        }
+        description.append(key).append('=').append(value);
+    }
+
+    /**
+     * Integer bounds give uniformly chosen integer including both bounds, otherwise uniform real number
+     */
+    private static String draw(String key, String[] range, Random random) {
+        try {
+            if (range[0].matches("-?\\d+") && range[1].matches("-?\\d+")) {
+                int lo = Integer.parseInt(range[0]);
+                int hi = Integer.parseInt(range[1]);
+                if (lo > hi) {
+                    error("sweep.random." + key);
+                }
+                return Integer.toString(lo + random.nextInt(hi - lo + 1));
+            }
+
+            double lo = Double.parseDouble(range[0]);
+            double hi = Double.parseDouble(range[1]);
+
+            if (lo > hi) {
+                error("sweep.random." + key);
+            }
+
+            return Double.toString(lo + random.nextDouble() * (hi - lo));
+        } catch (NumberFormatException e) {
+            error("sweep.random." + key);
+            return null;
+        }
+    }
+
+    /**
+     * Runs in order of rank, runs stopped in later rung rank above runs stopped earlier
+     */
+    private static void writeLeaderboard(File file, List<Run> runs) throws IOException {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+
+        try {
+            writer.println("rank,run,error,iterations,rungs,seconds,parameters");
+
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                writer.println((i + 1) + "," + run.id + "," + (run.isFailed ? "" : Double.toString(run.error)) + ","
+                        + run.statistics.getIteration() + "," + (run.rung + 1) + "," + run.time / 1000.0
+                        + ",\"" + run.description + "\"");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void error(String error, boolean useKey) {
+        if (useKey) {
+            System.err.println("Invalid value for config key " + error);
+        } else {
+            System.err.println(error);
+        }
+        System.exit(2);
+    }
+
+    private static void error(String error) {
+        error(error, true);
+    }
+
+    private static void printUsage(JSAP parser) {
+        System.err.println();
+        System.err.println("Usage: java -cp:lib/ " + Sweep.class.getName());
+        System.err.println("                " + parser.getUsage());
+        System.err.println();
+        System.err.println(parser.getHelp());
+        System.exit(1);
+    }
+
+}
@@ -3,26 +3,35 @@ package com.msuflaj;
 import com.martiansoftware.jsap.FlaggedOption;
 import com.martiansoftware.jsap.JSAP;
 import com.martiansoftware.jsap.JSAPResult;
+import com.msuflaj.condition.*;
 import com.msuflaj.dataset.CSVLoader;
 import com.msuflaj.dataset.DataSet;
 import com.msuflaj.dataset.Loader;
+import com.msuflaj.dataset.UnableToLoadException;
 import com.msuflaj.encoder.Encoder;
 import com.msuflaj.encoder.EquilateralEncoder;
+import com.msuflaj.initialization.WarmStartInitializer;
+import com.msuflaj.initialization.WeightsInitializerFactory;
 import com.msuflaj.logger.ConsoleLogger;
 import com.msuflaj.logger.Logger;
+import com.msuflaj.network.FloatForwardNetwork;
 import com.msuflaj.network.FullyConnectedForwardNetwork;
 import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
 import com.msuflaj.statistics.Statistics;
 import com.msuflaj.storage.FileWieghtsStorage;
-import com.msuflaj.storage.WeightsStorage;
 import com.msuflaj.trainer.*;
-import com.msuflaj.transfer.TanHFunction;
 import com.msuflaj.transfer.TransferFunction;
+import com.msuflaj.transfer.TransferFunctionFactory;
+import com.msuflaj.util.Pair;
 import org.jocl.CL;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 
@@ -56,11 +65,146 @@ public class Train {
 
     private static void run(Properties props) throws Exception {
 
+        int[] dimensionsConverted = parseDimensions(props);
+
+        Network network = createNetwork(props, dimensionsConverted);
+
+        final int numberOfClasses = dimensionsConverted[dimensionsConverted.length - 1] + 1;
+
+        Trainer trainer = createTrainer(props);
+
+        String weightsFile = props.getProperty("network.weights");
+
+        if (null == weightsFile) {
+            error("network.weights");
+            return;
+        }
+
+        FileWieghtsStorage storage = new FileWieghtsStorage(new File(weightsFile));
+
+        String init = props.getProperty("train.weights.init", "uniform").trim().toLowerCase();
+
+        if ("warm".equals(init)) {
+            if (!storage.load(network)) {
+                error("Unable to load weights from " + weightsFile, false);
+                return ;
+            }
+            ((InitializableTrainer) trainer).setInitializer(new WarmStartInitializer(network.getWeights()));
+        }
+
+        String deltasFile = props.getProperty("train.warmStart.deltas");
+        FileWieghtsStorage deltasStorage = null;
+
+        if (null != deltasFile) {
+            if (!(trainer instanceof RPROPTrainer || trainer instanceof FlatRPROPTrainer)) {
+                error("Resuming RPROP steps is supported only by rprop algorithms with regular and flat implementations", false);
+                return ;
+            }
+
+            deltasStorage = new FileWieghtsStorage(new File(deltasFile));
+
+            if ("warm".equals(init) && new File(deltasFile).exists()) {
+                double[] deltas = deltasStorage.load(network.getWeightsCount());
+
+                if (null == deltas) {
+                    error("Unable to load RPROP steps from " + deltasFile, false);
+                    return ;
+                }
+
+                if (trainer instanceof RPROPTrainer) {
+                    ((RPROPTrainer) trainer).setInitialDeltas(deltas);
+                } else {
+                    ((FlatRPROPTrainer) trainer).setInitialDeltas(deltas);
+                }
+            }
+        }
+
+        DataSet dataSet = loadDataSet(props, dimensionsConverted[0], numberOfClasses);
+
+        int temp;
+
+        try {
+            temp = Integer.parseInt(props.getProperty("train.logger.iterationMod"));
+        } catch (NumberFormatException e) {
+            error("train.logger.iterationMod");
+            return ;
+        }
+
+        if (temp <= 0) {
+            error("Iteration mod must be greater than 0", false);
+        }
+
+
+        Statistics statistics = new Statistics();
+
+        Logger logger = new ConsoleLogger(temp);
+        statistics.registerListener(logger, Statistics.ERROR | Statistics.ITERATION | Statistics.FINISH | Statistics.START);
+
+        try {
+            temp = Integer.parseInt(props.getProperty("train.iterations"));
+        } catch (NumberFormatException e) {
+            error("train.iterations");
+            return ;
+        }
+
+        if (temp < 0) {
+            error("Iterations must be greater or equal to 0", false);
+        }
+
+        List<Trainer.StopCondition> conditions = new ArrayList<>();
+        conditions.add(new IterationsCondition(temp));
+
+        Pair<DataSet, Validation> split = splitValidation(props, dataSet);
+
+        dataSet = split.first;
+
+        if (null != split.second) {
+            ((ValidatedTrainer) trainer).setValidation(split.second);
+
+            int patience = parseInt(props, "train.validation.patience", "0");
+
+            if (patience < 0) {
+                error("Patience must be greater or equal to 0", false);
+                return ;
+            }
+
+            if (patience > 0) {
+                PatienceCondition condition = new PatienceCondition(patience);
+                statistics.registerListener(condition, Statistics.VALIDATION_ERROR | Statistics.BEST_VALIDATION_ERROR);
+                conditions.add(condition);
+            }
+
+            statistics.registerListener(logger, Statistics.VALIDATION_ERROR);
+        }
+
+        conditions.addAll(createConditions(props));
+
+        try {
+            trainer.train(network, dataSet, new CompositeCondition(conditions.toArray(new Trainer.StopCondition[conditions.size()])), statistics);
+        } catch (Exception e) {
+            error("An error occurred during training", false);
+            return ;
+        }
+
+        storage.store(network);
+
+        if (null != deltasStorage) {
+            if (trainer instanceof RPROPTrainer) {
+                deltasStorage.store(((RPROPTrainer) trainer).getDeltas());
+            } else {
+                deltasStorage.store(((FlatRPROPTrainer) trainer).getDeltas());
+            }
+        }
+
+    }
+
+    static int[] parseDimensions(Properties props) {
+
         String dimensions = props.getProperty("network.dimensions");
 
         if (null == dimensions) {
             error("network.dimensions");
-            return ;
+            return null;
         }
 
         String[] parts = dimensions.split("x|X");
@@ -69,7 +213,7 @@ public class Train {
 
         if (parts.length < 2) {
             error("There need to be at least input and output layer", false);
-            return;
+            return null;
         }
 
         for (int i = 0; i < parts.length; i++) {
@@ -77,25 +221,36 @@ public class Train {
                 dimensionsConverted[i] = Integer.parseInt(parts[i]);
                 if (dimensionsConverted[i] < 1) {
                     error("Layer " + (i + 1) + " has neuron count less than 0", false);
-                    return;
+                    return null;
                 }
             } catch (NumberFormatException e) {
                 error("network.dimensions");
-                return ;
+                return null;
             }
         }
 
-        TransferFunction f = new TanHFunction();
+        return dimensionsConverted;
+    }
+
+    static Network createNetwork(Properties props, int[] dimensions) throws NetworkException {
+
+        TransferFunction[] functions = createTransferFunctions(props, dimensions.length - 1);
 
-        TransferFunction[] functions = new TransferFunction[dimensionsConverted.length - 1];
+        Network network;
 
-        for (int i = 0; i < functions.length; i++) {
-            functions[i] = f;
+        if (isFloat(props)) {
+            network = new FloatForwardNetwork(dimensions, functions, true);
+        } else {
+            network = new FullyConnectedForwardNetwork(dimensions, functions, true);
         }
 
-        Network network = new FullyConnectedForwardNetwork(dimensionsConverted, functions, true);
+        return network;
+    }
 
-        final int numberOfClasses = dimensionsConverted[dimensionsConverted.length - 1] + 1;
+    /**
+     * Creates trainer with all options except warm start, which needs stored weights
+     */
+    static Trainer createTrainer(Properties props) {
 
         String algorithm = props.getProperty("train.algorithm").toLowerCase();
 
@@ -103,89 +258,222 @@ public class Train {
 
         switch (algorithm) {
             case "rprop":
-                trainer = createRPROPTrainer(props);
+                trainer = createRPROPTrainer(props, RPROPTrainer.RPROP);
+                break;
+            case "irprop-":
+                trainer = createRPROPTrainer(props, RPROPTrainer.IRPROP_MINUS);
+                break;
+            case "irprop+":
+                trainer = createRPROPTrainer(props, RPROPTrainer.IRPROP_PLUS);
                 break;
             case "backprop":
                 trainer = createBackPropTrainer(props);
                 break;
+            case "lm":
+                trainer = createLMTrainer(props);
+                break;
+            case "scg":
+            case "lbfgs":
+                trainer = createVectorTrainer(props, algorithm);
+                break;
             default:
                 error("Invalid algorithm", false);
-                return;
+                return null;
+        }
+
+        int parallelism;
+
+        try {
+            parallelism = Integer.parseInt(props.getProperty("train.parallelism", "1"));
+        } catch (NumberFormatException e) {
+            error("train.parallelism");
+            return null;
+        }
+
+        if (parallelism < 0) {
+            error("Parallelism must be greater or equal to 0", false);
+            return null;
+        }
+
+        boolean isParallel = trainer instanceof PropagationTrainer || trainer instanceof LevenbergMarquardtTrainer;
+
+        if (!isParallel && 1 != parallelism) {
+            error("Parallelism is supported only by regular implementation and lm", false);
+            return null;
+        }
+
+        if (0 == parallelism) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+
+        if (trainer instanceof PropagationTrainer) {
+            ((PropagationTrainer) trainer).setParallelism(parallelism);
+        } else if (trainer instanceof LevenbergMarquardtTrainer) {
+            ((LevenbergMarquardtTrainer) trainer).setParallelism(parallelism);
+        }
+
+        if (Boolean.parseBoolean(props.getProperty("train.fusedError", "false"))) {
+            if (!(trainer instanceof PropagationTrainer)) {
+                error("Fused error is supported only by regular implementation", false);
+                return null;
+            }
+
+            ((PropagationTrainer) trainer).setFusedError(true);
+        }
+
+        if (Boolean.parseBoolean(props.getProperty("train.online", "false"))) {
+            if (!(trainer instanceof PropagationTrainer)) {
+                error("Online mode is supported only by regular implementation", false);
+                return null;
+            }
+
+            try {
+                ((PropagationTrainer) trainer).setOnlineMode(true);
+            } catch (NetworkException e) {
+                error(e.getMessage(), false);
+                return null;
+            }
+        }
+
+        int batchSize;
+
+        try {
+            batchSize = Integer.parseInt(props.getProperty("train.batchSize", "0"));
+        } catch (NumberFormatException e) {
+            error("train.batchSize");
+            return null;
+        }
+
+        if (batchSize < 0) {
+            error("Batch size must be greater or equal to 0", false);
+            return null;
+        }
+
+        if (trainer instanceof PropagationTrainer) {
+            ((PropagationTrainer) trainer).setBatchSize(batchSize);
+        } else if (trainer instanceof OpenCLPropagationTrainer) {
+            ((OpenCLPropagationTrainer) trainer).setBatchSize(batchSize);
+        } else if (batchSize > 0) {
+            error("Batch size is supported only by regular and opencl implementations", false);
+            return null;
+        }
+
+        double hardFraction = parseDouble(props, "train.sampling.hard", "0");
+
+        if (hardFraction > 0) {
+            Sampling sampling;
+
+            try {
+                sampling = new Sampling(hardFraction, parseDouble(props, "train.sampling.refresh", "0.05"),
+                        parseInt(props, "train.sampling.interval", "10"));
+            } catch (IllegalArgumentException e) {
+                error(e.getMessage(), false);
+                return null;
+            }
+
+            if (trainer instanceof PropagationTrainer) {
+                ((PropagationTrainer) trainer).setSampling(sampling);
+            } else if (trainer instanceof OpenCLPropagationTrainer) {
+                ((OpenCLPropagationTrainer) trainer).setSampling(sampling);
+            } else {
+                error("Sampling is supported only by regular and opencl implementations", false);
+                return null;
+            }
         }
 
+        String init = props.getProperty("train.weights.init", "uniform").trim().toLowerCase();
+
+        if (!"uniform".equals(init) && !"warm".equals(init)) {
+            try {
+                ((InitializableTrainer) trainer).setInitializer(new WeightsInitializerFactory().create(init));
+            } catch (IllegalArgumentException e) {
+                error(e.getMessage(), false);
+                return null;
+            }
+        }
+
+        return trainer;
+    }
+
+    static DataSet loadDataSet(Properties props, int inputs, final int numberOfClasses) throws IOException, UnableToLoadException {
+
         String fileName = props.getProperty("train.data");
 
         if (null == fileName) {
             error("train.data");
-            return ;
+            return null;
         }
 
         File file = new File(fileName);
 
-        Loader loader = new CSVLoader(new FileReader(file), true);
-        DataSet dataSet = loader.load(dimensionsConverted[0], new Loader.EncoderFactory() {
+        CSVLoader loader = new CSVLoader(new FileReader(file), true);
+        loader.setDeduplicated(Boolean.parseBoolean(props.getProperty("train.deduplicate", "false")));
+
+        return loader.load(inputs, new Loader.EncoderFactory() {
             @Override
             public Encoder getEncoder(int n) {
                 return new EquilateralEncoder(numberOfClasses);
             }
         });
+    }
 
-        int temp;
+    /**
+     * @return Data set to train on and validation, which is null when validation is disabled
+     */
+    static Pair<DataSet, Validation> splitValidation(Properties props, DataSet dataSet) {
 
-        try {
-            temp = Integer.parseInt(props.getProperty("train.logger.iterationMod"));
-        } catch (NumberFormatException e) {
-            error("train.logger.iterationMod");
-            return ;
-        }
+        double fraction = parseDouble(props, "train.validation.fraction", "0");
 
-        if (temp <= 0) {
-            error("Iteration mod must be greater than 0", false);
+        if (fraction < 0 || fraction >= 1) {
+            error("Validation fraction must be in [0, 1)", false);
+            return null;
         }
 
+        if (0 == fraction) {
+            return new Pair<>(dataSet, null);
+        }
 
-        Statistics statistics = new Statistics();
-
-        Logger logger = new ConsoleLogger(temp);
-        statistics.registerListener(logger, Statistics.ERROR | Statistics.ITERATION | Statistics.FINISH | Statistics.START);
+        Pair<DataSet, DataSet> split = dataSet.split(fraction, createRandom(props));
 
         try {
-            temp = Integer.parseInt(props.getProperty("train.iterations"));
-        } catch (NumberFormatException e) {
-            error("train.iterations");
-            return ;
+            return new Pair<>(split.first, new Validation(split.second, parseInt(props, "train.validation.interval", "1")));
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), false);
+            return null;
         }
+    }
 
-        if (temp < 0) {
-            error("Iterations must be greater or equal to 0", false);
-        }
+    /**
+     * @return Stop conditions except iterations limit and validation patience
+     */
+    static List<Trainer.StopCondition> createConditions(Properties props) {
 
-        final int numberOfIterations = temp;
+        List<Trainer.StopCondition> conditions = new ArrayList<>();
 
         try {
-            trainer.train(network, dataSet, new Trainer.StopCondition() {
-                @Override
-                public boolean isConditionMet(int iteration, double error) {
-                    return iteration < numberOfIterations;
-                }
-            }, statistics);
-        } catch (Exception e) {
-            error("An error occurred during training", false);
-            return ;
-        }
+            double target = parseDouble(props, "train.targetError", "0");
 
-        String weightsFile = props.getProperty("network.weights");
+            if (target > 0) {
+                conditions.add(new TargetErrorCondition(target));
+            }
 
-        if (null == weightsFile) {
-            error("network.weights");
-            return;
-        }
+            int window = parseInt(props, "train.plateau.window", "0");
 
-        File weights = new File(weightsFile);
+            if (window > 0) {
+                conditions.add(new PlateauCondition(window, parseDouble(props, "train.plateau.threshold", "0.001")));
+            }
 
-        WeightsStorage storage = new FileWieghtsStorage(weights);
-        storage.store(network);
+            double timeLimit = parseDouble(props, "train.timeLimit", "0");
 
+            if (timeLimit > 0) {
+                conditions.add(new DeadlineCondition((long) (timeLimit * 1000)));
+            }
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), false);
+            return null;
+        }
+
+        return conditions;
     }
 
     private static double[] getWeights(Properties props) {
@@ -229,13 +517,140 @@ public class Train {
 
         double[] data = getWeights(props);
 
+        int optimizer;
+
+        switch (props.getProperty("train.algorithm.backprop.optimizer", "gradient").toLowerCase()) {
+            case "gradient":
+                optimizer = BackPropagationTrainer.GRADIENT;
+                break;
+            case "momentum":
+                optimizer = BackPropagationTrainer.MOMENTUM;
+                break;
+            case "nesterov":
+                optimizer = BackPropagationTrainer.NESTEROV;
+                break;
+            case "adam":
+                optimizer = BackPropagationTrainer.ADAM;
+                break;
+            default:
+                error("train.algorithm.backprop.optimizer");
+                return null;
+        }
+
+        String[] keys = new String[] {
+            "train.algorithm.backprop.momentum",
+            "train.algorithm.backprop.adam.beta1",
+            "train.algorithm.backprop.adam.beta2",
+            "train.algorithm.backprop.adam.epsilon"
+        };
+        String[] defaults = new String[] {"0.9", "0.9", "0.999", "1e-8"};
+        double[] parts = new double[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            try {
+                parts[i] = Double.parseDouble(props.getProperty(keys[i], defaults[i]));
+            } catch (NumberFormatException e) {
+                error(keys[i]);
+                return null;
+            }
+        }
+
+        try {
+            if (isOpenCL(props)) {
+                OpenCLBackPropagationTrainer trainer = new OpenCLBackPropagationTrainer(val, data[0], data[1], createRandom(props), getOpenCLDevice(props));
+                trainer.setOptimizer(optimizer);
+                trainer.setMomentum(parts[0]);
+                trainer.setAdam(parts[1], parts[2], parts[3]);
+                return trainer;
+            }
+            if (BackPropagationTrainer.GRADIENT != optimizer && (isFloat(props) || isFlat(props))) {
+                error("Optimizers are supported only by regular and opencl implementations", false);
+                return null;
+            }
+            if (isFloat(props)) {
+                return new FloatBackPropagationTrainer(val, data[0], data[1], createRandom(props));
+            }
+            if (isFlat(props)) {
+                return new FlatBackPropagationTrainer(val, data[0], data[1], createRandom(props));
+            }
+            BackPropagationTrainer trainer = new BackPropagationTrainer(val, data[0], data[1], createRandom(props));
+            trainer.setOptimizer(optimizer);
+            trainer.setMomentum(parts[0]);
+            trainer.setAdam(parts[1], parts[2], parts[3]);
+            return trainer;
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), false);
+            return null;
+        }
+    }
+
+    private static Trainer createLMTrainer(Properties props) {
+
+        int i = 0;
+        double[] parts = new double[4];
+
+        for (String k : new String[] {
+            "train.algorithm.lm.mu",
+            "train.algorithm.lm.muIncrease",
+            "train.algorithm.lm.muDecrease",
+            "train.algorithm.lm.muMax"
+        }) {
+            String value = props.getProperty(k);
+
+            try {
+                parts[i++] = Double.parseDouble(value);
+            } catch (NumberFormatException | NullPointerException e) {
+                error(k);
+                return null;
+            }
+        }
+
+        double[] data = getWeights(props);
+
+        if (isOpenCL(props) || isFloat(props) || isFlat(props)) {
+            error("Levenberg-Marquardt is supported only by regular implementation with double precision", false);
+            return null;
+        }
+
+        try {
+            return new LevenbergMarquardtTrainer(parts[0], parts[1], parts[2], parts[3], data[0], data[1], createRandom(props));
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), false);
+            return null;
+        }
+    }
+
+    private static Trainer createVectorTrainer(Properties props, String algorithm) {
+
+        double[] data = getWeights(props);
+
         if (isOpenCL(props)) {
-            return new OpenCLBackPropagationTrainer(val, data[0], data[1], createRandom(props), getOpenCLDevice(props));
+            error("Conjugate gradient and L-BFGS are not supported by OpenCL implementation", false);
+            return null;
+        }
+
+        try {
+            if ("scg".equals(algorithm)) {
+                return new ScaledConjugateGradientTrainer(data[0], data[1], createRandom(props));
+            }
+
+            int history;
+
+            try {
+                history = Integer.parseInt(props.getProperty("train.algorithm.lbfgs.history", "10"));
+            } catch (NumberFormatException e) {
+                error("train.algorithm.lbfgs.history");
+                return null;
+            }
+
+            return new LBFGSTrainer(history, data[0], data[1], createRandom(props));
+        } catch (IllegalArgumentException e) {
+            error(e.getMessage(), false);
+            return null;
         }
-        return new BackPropagationTrainer(val, data[0], data[1], createRandom(props));
     }
 
-    private static long getOpenCLDevice(Properties props) {
+    static long getOpenCLDevice(Properties props) {
         String value = props.getProperty("train.implementation.opencl.device");
 
         long val;
@@ -276,7 +691,7 @@ public class Train {
         return new Random();
     }
 
-    private static Trainer createRPROPTrainer(Properties props) {
+    private static Trainer createRPROPTrainer(Properties props, int variant) {
 
         int i = 0;
         double[] parts = new double[5];
@@ -314,9 +729,23 @@ public class Train {
         }
 
         if (isOpenCL(props)) {
-            return new OpenCLRPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props), getOpenCLDevice(props));
+            OpenCLRPROPTrainer trainer = new OpenCLRPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props), getOpenCLDevice(props));
+            trainer.setVariant(variant);
+            return trainer;
+        }
+        if (RPROPTrainer.RPROP != variant && (isFloat(props) || isFlat(props))) {
+            error("iRPROP is supported only by regular and opencl implementations", false);
+            return null;
+        }
+        if (isFloat(props)) {
+            return new FloatRPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props));
         }
-        return new RPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props));
+        if (isFlat(props)) {
+            return new FlatRPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props));
+        }
+        RPROPTrainer trainer = new RPROPTrainer(parts[0], parts[1], parts[2], parts[3], parts[4], data[0], data[1], createRandom(props));
+        trainer.setVariant(variant);
+        return trainer;
     }
 
     private static boolean isOpenCL(Properties props) {
@@ -329,7 +758,7 @@ public class Train {
 
         v = v.toLowerCase();
 
-        if ("regular".equals(v)) {
+        if ("regular".equals(v) || "flat".equals(v)) {
             return false;
         } else if ("opencl".equals(v)) {
             return true;
@@ -340,6 +769,59 @@ public class Train {
 
     }
 
+    private static boolean isFlat(Properties props) {
+        return "flat".equalsIgnoreCase(props.getProperty("train.implementation"));
+    }
+
+    private static boolean isFloat(Properties props) {
+        String v = props.getProperty("network.precision", "double").toLowerCase();
+
+        if ("double".equals(v)) {
+            return false;
+        } else if ("float".equals(v)) {
+            return true;
+        }
+
+        error("network.precision");
+        return false;
+    }
+
+    static TransferFunction[] createTransferFunctions(Properties props, int layers) {
+        double maxError;
+
+        try {
+            maxError = Double.parseDouble(props.getProperty("network.transfer.maxError", "1e-4"));
+        } catch (NumberFormatException e) {
+            error("network.transfer.maxError");
+            return null;
+        }
+
+        try {
+            return new TransferFunctionFactory(maxError).create(props.getProperty("network.transfer", "tanh"), layers);
+        } catch (IllegalArgumentException e) {
+            error("network.transfer");
+            return null;
+        }
+    }
+
+    static double parseDouble(Properties props, String key, String defaultValue) {
+        try {
+            return Double.parseDouble(props.getProperty(key, defaultValue));
+        } catch (NumberFormatException e) {
+            error(key);
+            return 0;
+        }
+    }
+
+    static int parseInt(Properties props, String key, String defaultValue) {
+        try {
+            return Integer.parseInt(props.getProperty(key, defaultValue));
+        } catch (NumberFormatException e) {
+            error(key);
+            return 0;
+        }
+    }
+
     private static void error(String error, boolean useKey) {
         if (useKey) {
             System.err.println("Invalid value for config key " + error);
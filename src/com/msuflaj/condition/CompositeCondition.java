@@ -0,0 +1,26 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Continues training only while all conditions are met, so training stops on first condition
+ * that is not. Every condition is asked in each iteration.
+ */
+public class CompositeCondition implements Trainer.StopCondition {
+
+    private final Trainer.StopCondition[] conditions;
+
+    public CompositeCondition(Trainer.StopCondition... conditions) {
+        this.conditions = conditions;
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        boolean isMet = true;
+        for (Trainer.StopCondition condition : conditions) {
+            isMet &= condition.isConditionMet(iteration, error);
+        }
+        return isMet;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Stops when given wall-clock time passed since first iteration.
+ */
+public class DeadlineCondition implements Trainer.StopCondition {
+
+    private final long millis;
+
+    private long start;
+
+    public DeadlineCondition(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Time limit must be positive");
+        }
+        this.millis = millis;
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        if (0 == iteration) {
+            start = System.currentTimeMillis();
+        }
+        return System.currentTimeMillis() - start < millis;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Stops after given number of iterations.
+ */
+public class IterationsCondition implements Trainer.StopCondition {
+
+    private final int iterations;
+
+    public IterationsCondition(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Iterations must be greater or equal to 0");
+        }
+        this.iterations = iterations;
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        return iteration < iterations;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Stops when validation error did not improve for given number of validations.
+ * Must be registered as listener of {@link Statistics#VALIDATION_ERROR} and
+ * {@link Statistics#BEST_VALIDATION_ERROR} changes of the statistics passed to trainer.
+ */
+public class PatienceCondition implements Trainer.StopCondition, Statistics.Listener {
+
+    private final int patience;
+
+    private int validations;
+
+    public PatienceCondition(int patience) {
+        if (patience < 1) {
+            throw new IllegalArgumentException("Patience must be positive");
+        }
+        this.patience = patience;
+    }
+
+    @Override
+    public void update(Statistics statistics, int changeType) {
+        if ((changeType & Statistics.BEST_VALIDATION_ERROR) > 0) {
+            validations = -1;
+        } else if ((changeType & Statistics.VALIDATION_ERROR) > 0) {
+            validations++;
+        }
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        if (0 == iteration) {
+            validations = 0;
+        }
+        return validations < patience;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Stops when training error improved by less than given fraction over last window of iterations.
+ */
+public class PlateauCondition implements Trainer.StopCondition {
+
+    private final double threshold;
+
+    /**
+     * Errors of last window iterations, circular
+     */
+    private final double[] errors;
+
+    private int count;
+
+    /**
+     * @param window Number of iterations over which improvement is measured
+     * @param threshold Minimal relative improvement, for example 0.001
+     */
+    public PlateauCondition(int window, double threshold) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Plateau window must be positive");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Plateau threshold must be greater or equal to 0");
+        }
+        this.errors = new double[window];
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        if (0 == iteration) {
+            count = 0;
+        }
+
+        int slot = count % errors.length;
+        double old = errors[slot];
+
+        errors[slot] = error;
+        count++;
+
+        if (count <= errors.length) {
+            return true;
+        }
+
+        return old - error > threshold * old;
+    }
+
+}
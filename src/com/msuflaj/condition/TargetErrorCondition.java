@@ -0,0 +1,24 @@
+package com.msuflaj.condition;
+
+import com.msuflaj.trainer.Trainer;
+
+/**
+ * Stops when training error drops to given value.
+ */
+public class TargetErrorCondition implements Trainer.StopCondition {
+
+    private final double target;
+
+    public TargetErrorCondition(double target) {
+        if (target < 0) {
+            throw new IllegalArgumentException("Target error must be greater or equal to 0");
+        }
+        this.target = target;
+    }
+
+    @Override
+    public boolean isConditionMet(int iteration, double error) {
+        return error > target;
+    }
+
+}
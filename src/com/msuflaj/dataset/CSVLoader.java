@@ -13,6 +13,8 @@ public class CSVLoader implements Loader {
 
     private boolean skipFirst;
 
+    private boolean isDeduplicated;
+
     public CSVLoader(Reader reader) {
         this(reader, false);
     }
@@ -30,6 +32,13 @@ public class CSVLoader implements Loader {
         this.skipFirst = skipFirst;
     }
 
+    /**
+     * @param isDeduplicated Whether identical rows are collapsed, see {@link DataSet#deduplicate()}
+     */
+    public void setDeduplicated(boolean isDeduplicated) {
+        this.isDeduplicated = isDeduplicated;
+    }
+
     @Override
     public DataSet load(int inputCount, int outputCount) throws UnableToLoadException {
 
@@ -58,7 +67,9 @@ public class CSVLoader implements Loader {
             throw new UnableToLoadException(e);
         }
 
-        return new DataSet(input.toArray(new double[0][0]), output.toArray(new double[0][0]), null);
+        DataSet dataSet = new DataSet(input.toArray(new double[0][0]), output.toArray(new double[0][0]), null);
+
+        return isDeduplicated ? dataSet.deduplicate() : dataSet;
     }
 
     @Override
@@ -102,7 +113,9 @@ public class CSVLoader implements Loader {
             throw new UnableToLoadException(e);
         }
 
-        return new DataSet(input.toArray(new double[0][0]), output.toArray(new double[0][0]), encoder);
+        DataSet dataSet = new DataSet(input.toArray(new double[0][0]), output.toArray(new double[0][0]), encoder);
+
+        return isDeduplicated ? dataSet.deduplicate() : dataSet;
     }
 
 }
@@ -1,6 +1,14 @@
 package com.msuflaj.dataset;
 
 import com.msuflaj.encoder.Encoder;
+import com.msuflaj.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 public class DataSet {
 
@@ -10,10 +18,168 @@ public class DataSet {
 
     public final Encoder encoder;
 
+    /**
+     * Number of identical samples each row stands for, null when each row is one sample
+     */
+    public final int[] multiplicities;
+
+    /**
+     * Identity of one row, used to find duplicates
+     */
+    private static class Row {
+
+        private final double[] in;
+
+        private final double[] out;
+
+        private final int hash;
+
+        public Row(double[] in, double[] out) {
+            this.in = in;
+            this.out = out;
+            hash = 31 * Arrays.hashCode(in) + Arrays.hashCode(out);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Row)) {
+                return false;
+            }
+            Row row = (Row) o;
+            return Arrays.equals(in, row.in) && Arrays.equals(out, row.out);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
     public DataSet(double[][] first, double[][] second, Encoder encoder) {
+        this(first, second, encoder, null);
+    }
+
+    public DataSet(double[][] first, double[][] second, Encoder encoder, int[] multiplicities) {
+        if (null != multiplicities && multiplicities.length != first.length) {
+            throw new IllegalArgumentException("Expected multiplicity for each row");
+        }
         this.first = first;
         this.second = second;
         this.encoder = encoder;
+        this.multiplicities = multiplicities;
+    }
+
+    /**
+     * @return Multiplicity of each row, filled with 1 when rows are not collapsed
+     */
+    public int[] getMultiplicities() {
+        if (null != multiplicities) {
+            return multiplicities.clone();
+        }
+        int[] ret = new int[first.length];
+        Arrays.fill(ret, 1);
+        return ret;
+    }
+
+    /**
+     * @return Number of samples including collapsed duplicates, error is averaged over this count
+     */
+    public int getSampleCount() {
+        if (null == multiplicities) {
+            return first.length;
+        }
+        int count = 0;
+        for (int m : multiplicities) {
+            count += m;
+        }
+        return count;
+    }
+
+    /**
+     * Collapses identical rows (same input and output) into one row with summed multiplicity,
+     * first occurrence keeps its position
+     */
+    public DataSet deduplicate() {
+        Map<Row, Integer> positions = new HashMap<>();
+        List<double[]> in = new ArrayList<>();
+        List<double[]> out = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+
+        for (int i = 0; i < first.length; i++) {
+            Row row = new Row(first[i], second[i]);
+            Integer position = positions.get(row);
+            int m = null == multiplicities ? 1 : multiplicities[i];
+            if (null == position) {
+                positions.put(row, in.size());
+                in.add(first[i]);
+                out.add(second[i]);
+                counts.add(m);
+            } else {
+                counts.set(position, counts.get(position) + m);
+            }
+        }
+
+        int[] ret = new int[counts.size()];
+
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = counts.get(i);
+        }
+
+        return new DataSet(in.toArray(new double[0][0]), out.toArray(new double[0][0]), encoder, ret);
+    }
+
+    /**
+     * Randomly splits rows into two data sets sharing this encoder, collapsed duplicates stay together
+     *
+     * @param fraction Fraction of samples that go to second data set, for example validation set
+     * @param random Decides which samples are moved
+     */
+    public Pair<DataSet, DataSet> split(double fraction, Random random) {
+        if (fraction < 0 || fraction >= 1) {
+            throw new IllegalArgumentException("Fraction must be in [0, 1)");
+        }
+
+        int[] indices = new int[first.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+
+        for (int i = indices.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = indices[i];
+            indices[i] = indices[j];
+            indices[j] = t;
+        }
+
+        int count = (int) Math.round(first.length * fraction);
+        int remaining = first.length - count;
+
+        double[][] firstIn = new double[remaining][];
+        double[][] firstOut = new double[remaining][];
+        double[][] secondIn = new double[count][];
+        double[][] secondOut = new double[count][];
+        int[] firstCounts = null == multiplicities ? null : new int[remaining];
+        int[] secondCounts = null == multiplicities ? null : new int[count];
+
+        for (int i = 0; i < indices.length; i++) {
+            if (i < remaining) {
+                firstIn[i] = first[indices[i]];
+                firstOut[i] = second[indices[i]];
+                if (null != multiplicities) {
+                    firstCounts[i] = multiplicities[indices[i]];
+                }
+            } else {
+                secondIn[i - remaining] = first[indices[i]];
+                secondOut[i - remaining] = second[indices[i]];
+                if (null != multiplicities) {
+                    secondCounts[i - remaining] = multiplicities[indices[i]];
+                }
+            }
+        }
+
+        return new Pair<>(new DataSet(firstIn, firstOut, encoder, firstCounts), new DataSet(secondIn, secondOut, encoder, secondCounts));
     }
 
 }
@@ -13,14 +13,22 @@ public class ClassificationEvaluator implements Evaluator {
 
         Encoder encoder = dataSet.encoder;
 
+        int[] dimensions = network.getDimensions();
+
+        double[][] outputs = new double[dataSet.first.length][dimensions[dimensions.length - 1]];
+
+        try {
+            network.process(dataSet.first, outputs);
+        } catch (NetworkException e) {
+            throw new IllegalStateException(e);
+        }
+
+        int[] multiplicities = dataSet.getMultiplicities();
+
         for (int i = 0; i < dataSet.first.length; i++) {
-            try {
-                error += Math.abs(encoder.decode(dataSet.second[i]) - encoder.decode(network.process(dataSet.first[i])));
-            } catch (NetworkException e) {
-                throw new IllegalStateException(e);
-            }
+            error += multiplicities[i] * Math.abs(encoder.decode(dataSet.second[i]) - encoder.decode(outputs[i]));
         }
 
-        return error / dataSet.first.length;
+        return error / dataSet.getSampleCount();
     }
 }
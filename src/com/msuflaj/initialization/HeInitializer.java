@@ -0,0 +1,31 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * He initialization, weights are normal with variance 2 / fanIn and biases are zero.
+ * Suited for rectifier like layers.
+ */
+public class HeInitializer implements WeightsInitializer {
+
+    @Override
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights) {
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int inputs = dimensions[i - 1];
+            double deviation = Math.sqrt(2.0 / inputs);
+
+            for (int j = 0; j < dimensions[i]; j++, offset += inputs + extra) {
+                for (int k = 0; k < inputs; k++) {
+                    weights[offset + k] = random.nextGaussian() * deviation;
+                }
+
+                if (isBiased) {
+                    weights[offset + inputs] = 0;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * Nguyen-Widrow initialization. Weights of each neuron are scaled to norm 0.7 * h^(1/n), where
+ * h is number of neurons in layer and n number of its inputs, and bias is drawn from the same
+ * range, so active regions of neurons are spread over input space instead of saturated.
+ */
+public class NguyenWidrowInitializer implements WeightsInitializer {
+
+    @Override
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights) {
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int inputs = dimensions[i - 1];
+            double beta = 0.7 * Math.pow(dimensions[i], 1.0 / inputs);
+
+            for (int j = 0; j < dimensions[i]; j++, offset += inputs + extra) {
+                double norm = 0;
+
+                for (int k = 0; k < inputs; k++) {
+                    weights[offset + k] = random.nextDouble() - 0.5;
+                    norm += weights[offset + k] * weights[offset + k];
+                }
+
+                norm = Math.sqrt(norm);
+
+                for (int k = 0; k < inputs; k++) {
+                    weights[offset + k] *= beta / norm;
+                }
+
+                if (isBiased) {
+                    weights[offset + inputs] = (2 * random.nextDouble() - 1) * beta;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * Default initialization of all trainers, weights including biases are uniform in [lo, hi).
+ *
+ * Layers are drawn from output layer back to first hidden layer, and weights within a layer in
+ * {@link com.msuflaj.network.Network#getWeights()} ordering, so equal seeds give equal networks
+ * regardless of trainer.
+ */
+public class UniformInitializer implements WeightsInitializer {
+
+    private final double lo;
+
+    private final double hi;
+
+    public UniformInitializer(double lo, double hi) {
+        if (lo >= hi) {
+            throw new IllegalArgumentException("Down boundary must be less than upper boundary");
+        }
+
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    @Override
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights) {
+        int extra = isBiased ? 1 : 0;
+
+        double range = hi - lo;
+
+        for (int i = dimensions.length - 1, end = weights.length; i > 0; i--) {
+            int start = end - dimensions[i] * (dimensions[i - 1] + extra);
+
+            for (int k = start; k < end; k++) {
+                weights[k] = random.nextDouble() * range + lo;
+            }
+
+            end = start;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * Continues training from existing weights, for example loaded by
+ * {@link com.msuflaj.storage.FileWieghtsStorage} or taken from {@link com.msuflaj.network.Network#getWeights()}.
+ */
+public class WarmStartInitializer implements WeightsInitializer {
+
+    private final double[] weights;
+
+    public WarmStartInitializer(double[] weights) {
+        this.weights = weights.clone();
+    }
+
+    @Override
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights) {
+        if (weights.length != this.weights.length) {
+            throw new IllegalArgumentException("Expected " + weights.length + " weights, got " + this.weights.length);
+        }
+        System.arraycopy(this.weights, 0, weights, 0, weights.length);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * Chooses initial weights of a network from its layer dimensions.
+ */
+public interface WeightsInitializer {
+
+    /**
+     * @param dimensions Number of neurons in each layer, input layer first
+     * @param isBiased Whether each neuron has trailing bias weight
+     * @param random Source of randomness, so equal seeds give equal weights
+     * @param weights Filled in {@link com.msuflaj.network.Network#getWeights()} ordering
+     */
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights);
+
+}
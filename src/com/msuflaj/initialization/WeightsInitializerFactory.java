@@ -0,0 +1,21 @@
+package com.msuflaj.initialization;
+
+/**
+ * Creates weights initializers from their configuration names (nguyen-widrow, xavier and he).
+ */
+public class WeightsInitializerFactory {
+
+    public WeightsInitializer create(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "nguyen-widrow" :
+                return new NguyenWidrowInitializer();
+            case "xavier" :
+                return new XavierInitializer();
+            case "he" :
+                return new HeInitializer();
+            default :
+                throw new IllegalArgumentException("Unknown weights initialization " + name);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.msuflaj.initialization;
+
+import java.util.Random;
+
+/**
+ * Xavier (Glorot) initialization, weights are uniform in +-sqrt(6 / (fanIn + fanOut))
+ * and biases are zero. Suited for tanh and sigmoid layers.
+ */
+public class XavierInitializer implements WeightsInitializer {
+
+    @Override
+    public void initialize(int[] dimensions, boolean isBiased, Random random, double[] weights) {
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int inputs = dimensions[i - 1];
+            double limit = Math.sqrt(6.0 / (inputs + dimensions[i]));
+
+            for (int j = 0; j < dimensions[i]; j++, offset += inputs + extra) {
+                for (int k = 0; k < inputs; k++) {
+                    weights[offset + k] = (2 * random.nextDouble() - 1) * limit;
+                }
+
+                if (isBiased) {
+                    weights[offset + inputs] = 0;
+                }
+            }
+        }
+    }
+
+}
@@ -31,6 +31,9 @@ public abstract class Logger implements Statistics.Listener {
                 (statistics.getFinishTime() - statistics.getStartTime()) * 1e-3
             ) + " seconds");
             log("Best error is " + format.format(statistics.getBestError()));
+            if (statistics.getBestValidationError() < Double.MAX_VALUE) {
+                log("Best validation error is " + format.format(statistics.getBestValidationError()));
+            }
             return ;
         }
 
@@ -44,6 +47,8 @@ public abstract class Logger implements Statistics.Listener {
             log("Error: " + format.format(statistics.getError()));
         } else if ((changeType & Statistics.BEST_ERROR) > 0) {
             log("Best error: " + format.format(statistics.getBestError()));
+        } else if ((changeType & Statistics.VALIDATION_ERROR) > 0) {
+            log("Validation error: " + format.format(statistics.getValidationError()));
         }
     }
 
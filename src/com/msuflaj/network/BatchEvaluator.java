@@ -0,0 +1,117 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Evaluates layered networks on blocks of samples using {@link MatrixKernels}.
+ *
+ * Holds activation buffers for one block so it must not be shared between threads.
+ */
+class BatchEvaluator {
+
+    static final int BLOCK = 64;
+
+    private final int[] dimensions;
+
+    private final boolean isBiased;
+
+    /**
+     * Activations of input and hidden layers, [layer][sample][neuron]
+     */
+    private final double[][][] activations;
+
+    /**
+     * Array holding weights of each neuron, [layer][neuron]
+     */
+    private final double[][][] rows;
+
+    /**
+     * Index of first weight of each neuron in its array, [layer][neuron]
+     */
+    private final int[][] offsets;
+
+    BatchEvaluator(int[] dimensions, boolean isBiased) {
+        this.dimensions = dimensions;
+        this.isBiased = isBiased;
+
+        int extra = isBiased ? 1 : 0;
+
+        activations = new double[dimensions.length - 1][][];
+        rows = new double[dimensions.length - 1][][];
+        offsets = new int[dimensions.length - 1][];
+
+        for (int i = 0; i < activations.length; i++) {
+            activations[i] = new double[BLOCK][dimensions[i] + extra];
+            if (isBiased) {
+                for (double[] sample : activations[i]) {
+                    sample[dimensions[i]] = 1;
+                }
+            }
+            rows[i] = new double[dimensions[i + 1]][];
+            offsets[i] = new int[dimensions[i + 1]];
+        }
+    }
+
+    /**
+     * Points rows to row-major weights of each layer, arrays are read on every call to process
+     */
+    void setLayerWeights(double[][] weights) {
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 0; i < rows.length; i++) {
+            int size = dimensions[i] + extra;
+            for (int j = 0; j < rows[i].length; j++) {
+                rows[i][j] = weights[i];
+                offsets[i][j] = j * size;
+            }
+        }
+    }
+
+    /**
+     * Weights of neurons are read directly from these arrays, offsets stay 0
+     *
+     * @return Array holding weights of each neuron of layer + 1
+     */
+    double[][] getRows(int layer) {
+        return rows[layer];
+    }
+
+    /**
+     * @param functions Transfer function of each layer
+     * @param values Input vectors
+     * @param ret Output vectors, same length as values
+     */
+    void process(TransferFunction[] functions, double[][] values, double[][] ret) throws NetworkException {
+
+        if (values.length != ret.length) {
+            throw new NetworkException("Input and output arrays must have same number of samples");
+        }
+
+        int extra = isBiased ? 1 : 0;
+        int last = dimensions.length - 1;
+
+        for (int start = 0; start < values.length; start += BLOCK) {
+
+            int count = Math.min(BLOCK, values.length - start);
+
+            double[][] input = activations[0];
+
+            for (int b = 0; b < count; b++) {
+                System.arraycopy(values[start + b], 0, input[b], 0, dimensions[0]);
+            }
+
+            for (int i = 1; i < last; i++) {
+                MatrixKernels.forward(
+                    rows[i - 1], offsets[i - 1], dimensions[i], dimensions[i - 1] + extra,
+                    activations[i - 1], 0, activations[i], 0, count, functions[i - 1]
+                );
+            }
+
+            MatrixKernels.forward(
+                rows[last - 1], offsets[last - 1], dimensions[last], dimensions[last - 1] + extra,
+                activations[last - 1], 0, ret, start, count, functions[last - 1]
+            );
+        }
+    }
+
+}
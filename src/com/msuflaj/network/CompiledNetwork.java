@@ -0,0 +1,114 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Base class of networks generated by {@link NetworkCompiler}.
+ *
+ * Generated subclass implements {@link #evaluate(double[], double[])} with weights
+ * compiled in as constants and without any state, so network can be used from
+ * any number of threads. Weights can not be changed after compilation.
+ */
+public abstract class CompiledNetwork implements Network {
+
+    protected final int[] dimensions;
+
+    protected final TransferFunction[] transferFunctions;
+
+    protected final boolean isBiased;
+
+    private final double[] weights;
+
+    private final Session session = new Session() {
+
+        @Override
+        public double[] process(double[] values) throws NetworkException {
+            return CompiledNetwork.this.process(values);
+        }
+
+        @Override
+        public void process(double[] values, double[] ret) throws NetworkException {
+            CompiledNetwork.this.process(values, ret);
+        }
+
+        @Override
+        public void process(double[][] values, double[][] ret) throws NetworkException {
+            CompiledNetwork.this.process(values, ret);
+        }
+    };
+
+    protected CompiledNetwork(int[] dimensions, TransferFunction[] functions, boolean isBiased, double[] weights) {
+        this.dimensions = dimensions.clone();
+        this.transferFunctions = functions.clone();
+        this.isBiased = isBiased;
+        this.weights = weights.clone();
+    }
+
+    /**
+     * @param values Input vector
+     * @param ret Output vector
+     */
+    protected abstract void evaluate(double[] values, double[] ret);
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        double[] output = new double[dimensions[dimensions.length - 1]];
+        evaluate(values, output);
+        return output;
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+        evaluate(values, ret);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+
+        if (values.length != ret.length) {
+            throw new NetworkException("Input and output arrays must have same number of samples");
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            evaluate(values[i], ret[i]);
+        }
+    }
+
+    /**
+     * @return Session that delegates to the network since compiled network has no state
+     */
+    @Override
+    public Session createSession() {
+        return session;
+    }
+
+    @Override
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    @Override
+    public int getWeightsCount() {
+        return weights.length;
+    }
+
+    @Override
+    public void setWeights(double[] weights) {
+        throw new UnsupportedOperationException("Weights of compiled network can not be changed, compile network again");
+    }
+
+    @Override
+    public boolean isBiased() {
+        return isBiased;
+    }
+
+    @Override
+    public TransferFunction[] getTransferFunctions() {
+        return transferFunctions;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return dimensions;
+    }
+}
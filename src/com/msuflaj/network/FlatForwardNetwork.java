@@ -0,0 +1,166 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Fully connected forward network that keeps weights of each layer in one
+ * contiguous row-major array instead of a graph of neuron objects.
+ *
+ * Row j of layer i holds weights of neuron j in layer i towards every neuron
+ * of layer i - 1 (biased neuron is last), which is the same ordering that
+ * {@link FullyConnectedForwardNetwork} uses for {@link #getWeights()} and
+ * {@link #setWeights(double[])}, so stored weights are interchangeable.
+ *
+ * Process methods of the network share one {@link Session}, threads should
+ * use their own session from {@link #createSession()}.
+ */
+public class FlatForwardNetwork implements Network {
+
+    protected final int inputNeuronsCount;
+
+    protected final int outputNeuronsCount;
+
+    protected final int weightsOffset;
+
+    protected final int[] dimensions;
+
+    protected final TransferFunction[] transferFunctions;
+
+    protected final boolean isBiased;
+
+    /**
+     * Weights for layer i + 1, each of size dimensions[i + 1] * (dimensions[i] + extra)
+     */
+    protected final double[][] weights;
+
+    /**
+     * Session used by process methods of the network itself
+     */
+    protected final Session session;
+
+    public FlatForwardNetwork(int[] dimensions, TransferFunction[] functions) throws NetworkException {
+        this(dimensions, functions, true);
+    }
+
+    public FlatForwardNetwork(int[] dimensions, TransferFunction[] functions, boolean isBiased) throws NetworkException {
+        if (dimensions.length < 2) {
+            throw new NetworkException("Layer count can not be less than two");
+        }
+
+        if (dimensions.length - 1 != functions.length) {
+            throw new NetworkException("Input neurons do not need transfer function (only hidden and output layers)");
+        }
+
+        if (dimensions[0] < 1) {
+            throw new NetworkException("Input neurons count must be greater than 0");
+        }
+
+        for (int i = 1; i < dimensions.length - 1; i++) {
+            if (dimensions[i] < 1) {
+                throw new NetworkException("Number of neurons in hidden layer " + i + " can not be less than 0");
+            }
+        }
+
+        if (dimensions[dimensions.length - 1] < 1) {
+            throw new NetworkException("Output layer neurons count must be greater than 0");
+        }
+
+        int extra = isBiased ? 1 : 0;
+
+        weights = new double[dimensions.length - 1][];
+
+        int offset = 0;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            weights[i - 1] = new double[dimensions[i] * (dimensions[i - 1] + extra)];
+            offset += weights[i - 1].length;
+        }
+
+        this.inputNeuronsCount = dimensions[0];
+        this.outputNeuronsCount = dimensions[dimensions.length - 1];
+        this.weightsOffset = offset;
+        this.isBiased = isBiased;
+        this.dimensions = dimensions.clone();
+        this.transferFunctions = functions.clone();
+
+        session = createSession();
+    }
+
+    public int getOutputNeuronsCount() {
+        return outputNeuronsCount;
+    }
+
+    /**
+     * Returns backing weights array for given layer (1-based, same as in dimensions)
+     *
+     * @param layer Layer index
+     * @return Row-major weights of the layer
+     */
+    public double[] getLayerWeights(int layer) {
+        return weights[layer - 1];
+    }
+
+    @Override
+    public boolean isBiased() {
+        return isBiased;
+    }
+
+    @Override
+    public TransferFunction[] getTransferFunctions() {
+        return transferFunctions;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public double[] getWeights() {
+        double[] ret = new double[weightsOffset];
+
+        int offset = 0;
+
+        for (double[] layer : weights) {
+            System.arraycopy(layer, 0, ret, offset, layer.length);
+            offset += layer.length;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int getWeightsCount() {
+        return weightsOffset;
+    }
+
+    @Override
+    public void setWeights(double[] weights) {
+        int offset = 0;
+
+        for (double[] layer : this.weights) {
+            System.arraycopy(weights, offset, layer, 0, layer.length);
+            offset += layer.length;
+        }
+    }
+
+    @Override
+    public LayeredSession createSession() {
+        return new LayeredSession(dimensions, transferFunctions, isBiased, weights);
+    }
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        return session.process(values);
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+}
@@ -0,0 +1,242 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+import com.msuflaj.util.ArrayConverter;
+
+/**
+ * Single precision variant of {@link FlatForwardNetwork}.
+ *
+ * Weights and activations are stored as floats, same as in OpenCL trainers, which halves
+ * memory traffic of the hot loops. Public API still uses doubles so stored weights,
+ * evaluators and trainers work unchanged.
+ */
+public class FloatForwardNetwork implements Network {
+
+    protected final int inputNeuronsCount;
+
+    protected final int outputNeuronsCount;
+
+    protected final int weightsOffset;
+
+    protected final int[] dimensions;
+
+    protected final TransferFunction[] transferFunctions;
+
+    protected final boolean isBiased;
+
+    /**
+     * Weights for layer i + 1, each of size dimensions[i + 1] * (dimensions[i] + extra)
+     */
+    protected final float[][] weights;
+
+    protected final Session session;
+
+    public class FloatSession implements Session {
+
+        private final float[][] activations;
+
+        public FloatSession() {
+            int extra = isBiased ? 1 : 0;
+
+            activations = new float[dimensions.length][];
+
+            for (int i = 0; i < dimensions.length - 1; i++) {
+                activations[i] = new float[dimensions[i] + extra];
+                if (isBiased) {
+                    activations[i][dimensions[i]] = 1;
+                }
+            }
+
+            activations[dimensions.length - 1] = new float[outputNeuronsCount];
+        }
+
+        @Override
+        public double[] process(double[] values) throws NetworkException {
+            double[] output = new double[outputNeuronsCount];
+            process(values, output);
+            return output;
+        }
+
+        @Override
+        public void process(double[] values, double[] ret) throws NetworkException {
+
+            float[] input = activations[0];
+
+            for (int i = 0; i < inputNeuronsCount; i++) {
+                input[i] = (float) values[i];
+            }
+
+            for (int i = 1; i < dimensions.length; i++) {
+                float[] in = activations[i - 1];
+                float[] out = activations[i];
+                float[] w = weights[i - 1];
+                TransferFunction function = transferFunctions[i - 1];
+
+                int size = in.length;
+
+                for (int j = 0, l = dimensions[i], offset = 0; j < l; j++, offset += size) {
+                    float sum = 0;
+                    for (int k = 0; k < size; k++) {
+                        sum += w[offset + k] * in[k];
+                    }
+                    out[j] = (float) function.calculate(sum);
+                }
+            }
+
+            float[] output = activations[dimensions.length - 1];
+
+            for (int i = 0; i < outputNeuronsCount; i++) {
+                ret[i] = output[i];
+            }
+        }
+
+        @Override
+        public void process(double[][] values, double[][] ret) throws NetworkException {
+
+            if (values.length != ret.length) {
+                throw new NetworkException("Input and output arrays must have same number of samples");
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                process(values[i], ret[i]);
+            }
+        }
+    }
+
+    public FloatForwardNetwork(int[] dimensions, TransferFunction[] functions) throws NetworkException {
+        this(dimensions, functions, true);
+    }
+
+    public FloatForwardNetwork(int[] dimensions, TransferFunction[] functions, boolean isBiased) throws NetworkException {
+        if (dimensions.length < 2) {
+            throw new NetworkException("Layer count can not be less than two");
+        }
+
+        if (dimensions.length - 1 != functions.length) {
+            throw new NetworkException("Input neurons do not need transfer function (only hidden and output layers)");
+        }
+
+        if (dimensions[0] < 1) {
+            throw new NetworkException("Input neurons count must be greater than 0");
+        }
+
+        for (int i = 1; i < dimensions.length - 1; i++) {
+            if (dimensions[i] < 1) {
+                throw new NetworkException("Number of neurons in hidden layer " + i + " can not be less than 0");
+            }
+        }
+
+        if (dimensions[dimensions.length - 1] < 1) {
+            throw new NetworkException("Output layer neurons count must be greater than 0");
+        }
+
+        int extra = isBiased ? 1 : 0;
+
+        weights = new float[dimensions.length - 1][];
+
+        int offset = 0;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            weights[i - 1] = new float[dimensions[i] * (dimensions[i - 1] + extra)];
+            offset += weights[i - 1].length;
+        }
+
+        this.inputNeuronsCount = dimensions[0];
+        this.outputNeuronsCount = dimensions[dimensions.length - 1];
+        this.weightsOffset = offset;
+        this.isBiased = isBiased;
+        this.dimensions = dimensions.clone();
+        this.transferFunctions = functions.clone();
+
+        session = createSession();
+    }
+
+    public int getOutputNeuronsCount() {
+        return outputNeuronsCount;
+    }
+
+    /**
+     * Returns backing weights array for given layer (1-based, same as in dimensions)
+     *
+     * @param layer Layer index
+     * @return Row-major weights of the layer
+     */
+    public float[] getLayerWeights(int layer) {
+        return weights[layer - 1];
+    }
+
+    @Override
+    public boolean isBiased() {
+        return isBiased;
+    }
+
+    @Override
+    public TransferFunction[] getTransferFunctions() {
+        return transferFunctions;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return All weights in single precision, same ordering as {@link #getWeights()}
+     */
+    public float[] getFloatWeights() {
+        float[] ret = new float[weightsOffset];
+
+        int offset = 0;
+
+        for (float[] layer : weights) {
+            System.arraycopy(layer, 0, ret, offset, layer.length);
+            offset += layer.length;
+        }
+
+        return ret;
+    }
+
+    public void setFloatWeights(float[] weights) {
+        int offset = 0;
+
+        for (float[] layer : this.weights) {
+            System.arraycopy(weights, offset, layer, 0, layer.length);
+            offset += layer.length;
+        }
+    }
+
+    @Override
+    public double[] getWeights() {
+        return ArrayConverter.fromFloatToDouble(getFloatWeights());
+    }
+
+    @Override
+    public int getWeightsCount() {
+        return weightsOffset;
+    }
+
+    @Override
+    public void setWeights(double[] weights) {
+        setFloatWeights(ArrayConverter.fromDoubleToFloat(weights));
+    }
+
+    @Override
+    public Session createSession() {
+        return new FloatSession();
+    }
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        return session.process(values);
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+}
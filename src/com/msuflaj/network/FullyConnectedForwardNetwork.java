@@ -20,10 +20,17 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
     protected List<Neuron[]> neurons;
 
+    /**
+     * Output of each layer gathered in an array, hidden layers end with output of biased neuron
+     */
+    protected double[][] outputs;
+
     protected TransferFunction[] transferFunctions;
 
     protected boolean isBiased;
 
+    protected Session batchSession;
+
     public static class BiasedNeuron implements PropagationTrainer.PropagationCompatibleNeuron {
 
         private static TransferFunction function = new LinearFunction();
@@ -38,11 +45,6 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
             return new double[0];
         }
 
-        @Override
-        public double getRawOutput() {
-            return 1;
-        }
-
         @Override
         public TransferFunction getTransferFunction() {
             return function;
@@ -52,6 +54,11 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
         public Neuron[] getConnections() {
             return new Neuron[0];
         }
+
+        @Override
+        public double[] getInputs() {
+            return new double[0];
+        }
     }
 
     public static class InputNeuron implements Neuron {
@@ -72,19 +79,27 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
         protected double output;
 
-        protected double rawOutput;
-
         protected double[] weights;
 
         protected Neuron[] neurons;
 
+        protected double[] inputs;
+
         protected TransferFunction transferFunction;
 
-        public void connect(Neuron[] neurons) {
+        /**
+         * @param neurons Neurons from previous layer
+         * @param inputs Array that holds outputs of given neurons when this neuron is calculated
+         */
+        public void connect(Neuron[] neurons, double[] inputs) {
             if (null != weights && neurons.length != weights.length) {
                 throw new IllegalArgumentException("Neurons and weights arrays should have same dimensions");
             }
+            if (neurons.length != inputs.length) {
+                throw new IllegalArgumentException("Neurons and inputs arrays should have same dimensions");
+            }
             this.neurons = neurons;
+            this.inputs = inputs;
         }
 
         @Override
@@ -92,6 +107,11 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
             return neurons;
         }
 
+        @Override
+        public double[] getInputs() {
+            return inputs;
+        }
+
         public void setWeights(double[] weights) {
             if (null != neurons) {
                 if (neurons.length != weights.length) {
@@ -107,11 +127,7 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
         }
 
         public void calculate() {
-            rawOutput = 0;
-            for (int i = 0 ; i < neurons.length; i++) {
-                rawOutput += neurons[i].getOutput() * weights[i];
-            }
-            output = transferFunction.calculate(rawOutput);
+            output = transferFunction.calculate(Kernels.dot(weights, 0, inputs, 0, weights.length));
         }
 
         @Override
@@ -119,11 +135,6 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
             return output;
         }
 
-        @Override
-        public double getRawOutput() {
-            return rawOutput;
-        }
-
         @Override
         public TransferFunction getTransferFunction() {
             return transferFunction;
@@ -135,6 +146,77 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
     }
 
+    /**
+     * Session that reads weights directly from neurons and keeps outputs in its own buffers
+     */
+    protected class NeuronSession implements Session {
+
+        private final double[][] activations;
+
+        private BatchEvaluator batchEvaluator;
+
+        public NeuronSession() {
+            int extra = isBiased ? 1 : 0;
+
+            activations = new double[dimensions.length][];
+
+            for (int i = 0; i < dimensions.length - 1; i++) {
+                activations[i] = new double[dimensions[i] + extra];
+                if (isBiased) {
+                    activations[i][dimensions[i]] = 1;
+                }
+            }
+
+            activations[dimensions.length - 1] = new double[outputNeuronsCount];
+        }
+
+        @Override
+        public double[] process(double[] values) throws NetworkException {
+            double[] output = new double[outputNeuronsCount];
+            process(values, output);
+            return output;
+        }
+
+        @Override
+        public void process(double[] values, double[] ret) throws NetworkException {
+
+            System.arraycopy(values, 0, activations[0], 0, inputNeuronsCount);
+
+            for (int i = 1; i < dimensions.length; i++) {
+                Neuron[] layer = neurons.get(i);
+                double[] in = activations[i - 1];
+                double[] out = activations[i];
+                TransferFunction function = transferFunctions[i - 1];
+
+                for (int j = 0, l = dimensions[i]; j < l; j++) {
+                    double[] weights = ((RegularNeuron) layer[j]).getWeights();
+                    out[j] = function.calculate(Kernels.dot(weights, 0, in, 0, in.length));
+                }
+            }
+
+            System.arraycopy(activations[dimensions.length - 1], 0, ret, 0, outputNeuronsCount);
+        }
+
+        @Override
+        public void process(double[][] values, double[][] ret) throws NetworkException {
+
+            if (null == batchEvaluator) {
+                batchEvaluator = new BatchEvaluator(dimensions, isBiased);
+            }
+
+            // Neurons may replace their weight arrays, so references are gathered on each call
+            for (int i = 1; i < dimensions.length; i++) {
+                Neuron[] layer = neurons.get(i);
+                double[][] rows = batchEvaluator.getRows(i - 1);
+                for (int j = 0; j < rows.length; j++) {
+                    rows[j] = ((RegularNeuron) layer[j]).getWeights();
+                }
+            }
+
+            batchEvaluator.process(transferFunctions, values, ret);
+        }
+    }
+
     public FullyConnectedForwardNetwork(int[] dimensions, TransferFunction[] functions) throws NetworkException {
         this(dimensions, functions, true);
     }
@@ -149,6 +231,7 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
         }
 
         neurons = new ArrayList<>(dimensions.length);
+        outputs = new double[dimensions.length][];
 
         if (dimensions[0]< 1) {
             throw new NetworkException("Input neurons count must be greater than 0");
@@ -170,6 +253,9 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
         weightsOffset = 0;
 
+        double[] inputs = createOutputs(dimensions[0], isBiased);
+        outputs[0] = inputs;
+
         this.neurons.add(neurons);
 
         for (int i = 1; i < dimensions.length - 1; i++) {
@@ -186,7 +272,7 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
             for (int j = 0; j < d; j++) {
                 RegularNeuron neuron = new RegularNeuron();
-                neuron.connect(neurons);
+                neuron.connect(neurons, inputs);
                 neuron.setWeights(new double[neurons.length]);
                 neuron.setTransferFunction(function);
                 newLayer[j] = neuron;
@@ -197,6 +283,8 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
             }
 
             neurons = newLayer;
+            inputs = createOutputs(d, isBiased);
+            outputs[i] = inputs;
 
             this.neurons.add(newLayer);
         }
@@ -214,9 +302,11 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
         TransferFunction function = functions[functions.length - 1];
 
+        outputs[dimensions.length - 1] = new double[d];
+
         for (int i = 0; i < d; i++) {
             RegularNeuron neuron = new RegularNeuron();
-            neuron.connect(neurons);
+            neuron.connect(neurons, inputs);
             neuron.setWeights(new double[neurons.length]);
             neuron.setTransferFunction(function);
             newLayer[i] = neuron;
@@ -234,6 +324,14 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
     }
 
+    private static double[] createOutputs(int count, boolean isBiased) {
+        double[] outputs = new double[count + (isBiased ? 1 : 0)];
+        if (isBiased) {
+            outputs[count] = 1;
+        }
+        return outputs;
+    }
+
     public int getOutputNeuronsCount() {
         return outputNeuronsCount;
     }
@@ -307,6 +405,11 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
         }
     }
 
+    @Override
+    public Session createSession() {
+        return new NeuronSession();
+    }
+
     @Override
     public double[] process(double[] values) throws NetworkException {
         double[] output = new double[getOutputNeuronsCount()];
@@ -321,25 +424,42 @@ public class FullyConnectedForwardNetwork implements PropagationTrainer.Trainabl
 
         int extra = (isBiased) ? 1 : 0;
 
+        double[] inputs = outputs[0];
+
         for (int i = 0; i < inputNeuronsCount; i++) {
             ((InputNeuron) inputNeurons[i]).setInput(values[i]);
+            inputs[i] = values[i];
         }
 
         for (int i = 1; i < dimensions.length - 1; i++) {
             Neuron[] neurons = this.neurons.get(i);
+            double[] layerOutputs = outputs[i];
 
             for (int j = 0, l = neurons.length - extra; j < l; j++) {
-                ((RegularNeuron) neurons[j]).calculate();
+                RegularNeuron neuron = (RegularNeuron) neurons[j];
+                neuron.calculate();
+                layerOutputs[j] = neuron.getOutput();
             }
 
         }
 
         Neuron[] outputNeurons = neurons.get(dimensions.length - 1);
+        double[] layerOutputs = outputs[dimensions.length - 1];
 
         for (int i = 0; i < outputNeurons.length; i++) {
             ((RegularNeuron) outputNeurons[i]).calculate();
-            ret[i] = outputNeurons[i].getOutput();
+            ret[i] = layerOutputs[i] = outputNeurons[i].getOutput();
+        }
+
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+
+        if (null == batchSession) {
+            batchSession = createSession();
         }
 
+        batchSession.process(values, ret);
     }
 }
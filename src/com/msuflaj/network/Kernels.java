@@ -0,0 +1,32 @@
+package com.msuflaj.network;
+
+/**
+ * Dot product and accumulation kernels used by the inner loops of networks and trainers.
+ *
+ * Loops are kept plain so that HotSpot can unroll and vectorize them on its own.
+ */
+public final class Kernels {
+
+    private Kernels() { }
+
+    /**
+     * @return Sum of a[aOffset + i] * b[bOffset + i] for i in [0, length)
+     */
+    public static double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Calculates y[yOffset + i] += alpha * x[xOffset + i] for i in [0, length)
+     */
+    public static void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Session over row-major layer weights, see {@link FlatForwardNetwork}
+ */
+public class LayeredSession implements Session {
+
+    private final int[] dimensions;
+
+    private final TransferFunction[] transferFunctions;
+
+    private final boolean isBiased;
+
+    private final double[][] weights;
+
+    private final double[][] activations;
+
+    private BatchEvaluator batchEvaluator;
+
+    /**
+     * @param dimensions Network dimensions
+     * @param functions Transfer function for each layer except input
+     * @param isBiased Whether each non-output layer has biased neuron
+     * @param weights Shared row-major weights of each layer, they are not copied
+     */
+    public LayeredSession(int[] dimensions, TransferFunction[] functions, boolean isBiased, double[][] weights) {
+        this.dimensions = dimensions;
+        this.transferFunctions = functions;
+        this.isBiased = isBiased;
+        this.weights = weights;
+
+        int extra = isBiased ? 1 : 0;
+
+        activations = new double[dimensions.length][];
+
+        for (int i = 0; i < dimensions.length - 1; i++) {
+            activations[i] = new double[dimensions[i] + extra];
+            if (isBiased) {
+                activations[i][dimensions[i]] = 1;
+            }
+        }
+
+        activations[dimensions.length - 1] = new double[dimensions[dimensions.length - 1]];
+    }
+
+    /**
+     * @param layer Layer index (0-based, same as in dimensions)
+     * @return Backing activations of the layer from last processed sample, biased neuron is last
+     */
+    public double[] getActivations(int layer) {
+        return activations[layer];
+    }
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        double[] output = new double[dimensions[dimensions.length - 1]];
+        process(values, output);
+        return output;
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+
+        System.arraycopy(values, 0, activations[0], 0, dimensions[0]);
+
+        for (int i = 1; i < dimensions.length; i++) {
+            double[] in = activations[i - 1];
+            double[] out = activations[i];
+            double[] w = weights[i - 1];
+            TransferFunction function = transferFunctions[i - 1];
+
+            int size = in.length;
+
+            for (int j = 0, l = dimensions[i], offset = 0; j < l; j++, offset += size) {
+                out[j] = function.calculate(Kernels.dot(w, offset, in, 0, size));
+            }
+        }
+
+        System.arraycopy(activations[dimensions.length - 1], 0, ret, 0, dimensions[dimensions.length - 1]);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+        if (null == batchEvaluator) {
+            batchEvaluator = new BatchEvaluator(dimensions, isBiased);
+            batchEvaluator.setLayerWeights(weights);
+        }
+        batchEvaluator.process(transferFunctions, values, ret);
+    }
+}
@@ -0,0 +1,99 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Dense layer kernels shared by network implementations.
+ */
+public final class MatrixKernels {
+
+    /**
+     * Number of bytes of weights that should stay in cache while a block of samples passes over them
+     */
+    private static final int ROW_BLOCK_BYTES = 16 * 1024;
+
+    private MatrixKernels() { }
+
+    /**
+     * Calculates out[b][j] = f(sum(w[j][offsets[j] + k] * in[b][k])) for count samples.
+     *
+     * Rows are processed in tiles that fit in cache and samples are processed four at a time
+     * so that each loaded weight is used for four samples.
+     *
+     * @param w Array holding weights of each row, rows of row-major layer all point to the same array
+     * @param offsets Index of first weight of each row in its array
+     * @param rows Number of neurons in layer
+     * @param cols Number of inputs of each neuron (including biased neuron)
+     * @param in Input vectors, each at least cols long
+     * @param inOffset Index of first input vector
+     * @param out Output vectors, each at least rows long
+     * @param outOffset Index of first output vector
+     * @param count Number of samples
+     * @param function Transfer function to apply
+     */
+    public static void forward(double[][] w, int[] offsets, int rows, int cols, double[][] in, int inOffset,
+                               double[][] out, int outOffset, int count, TransferFunction function) {
+
+        int rowBlock = Math.max(1, (ROW_BLOCK_BYTES >> 3) / cols);
+
+        for (int rowStart = 0; rowStart < rows; rowStart += rowBlock) {
+
+            int rowEnd = Math.min(rows, rowStart + rowBlock);
+
+            int b = 0;
+
+            for (; b + 3 < count; b += 4) {
+                double[] in0 = in[inOffset + b];
+                double[] in1 = in[inOffset + b + 1];
+                double[] in2 = in[inOffset + b + 2];
+                double[] in3 = in[inOffset + b + 3];
+                double[] out0 = out[outOffset + b];
+                double[] out1 = out[outOffset + b + 1];
+                double[] out2 = out[outOffset + b + 2];
+                double[] out3 = out[outOffset + b + 3];
+
+                for (int j = rowStart; j < rowEnd; j++) {
+                    double[] row = w[j];
+                    int offset = offsets[j];
+
+                    double s0 = 0;
+                    double s1 = 0;
+                    double s2 = 0;
+                    double s3 = 0;
+
+                    for (int k = 0; k < cols; k++) {
+                        double weight = row[offset + k];
+                        s0 += weight * in0[k];
+                        s1 += weight * in1[k];
+                        s2 += weight * in2[k];
+                        s3 += weight * in3[k];
+                    }
+
+                    out0[j] = function.calculate(s0);
+                    out1[j] = function.calculate(s1);
+                    out2[j] = function.calculate(s2);
+                    out3[j] = function.calculate(s3);
+                }
+            }
+
+            for (; b < count; b++) {
+                double[] in0 = in[inOffset + b];
+                double[] out0 = out[outOffset + b];
+
+                for (int j = rowStart; j < rowEnd; j++) {
+                    double[] row = w[j];
+                    int offset = offsets[j];
+
+                    double s0 = 0;
+
+                    for (int k = 0; k < cols; k++) {
+                        s0 += row[offset + k] * in0[k];
+                    }
+
+                    out0[j] = function.calculate(s0);
+                }
+            }
+        }
+    }
+
+}
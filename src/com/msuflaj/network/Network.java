@@ -11,6 +11,22 @@ public interface Network {
     public void process(double[] values, double[] ret)
             throws NetworkException;
 
+    /**
+     * Processes a batch of samples
+     *
+     * @param values Input vectors
+     * @param ret Output vectors, one for each input vector
+     */
+    public void process(double[][] values, double[][] ret)
+            throws NetworkException;
+
+    /**
+     * Creates independent inference state so that network can be used from multiple threads
+     *
+     * @return New session, one for each thread
+     */
+    public Session createSession();
+
     public double[] getWeights();
 
     public int getWeightsCount();
@@ -0,0 +1,236 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.LinearFunction;
+import com.msuflaj.transfer.SigmoidFunction;
+import com.msuflaj.transfer.TanHFunction;
+import com.msuflaj.transfer.TransferFunction;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles trained network into a specialized class.
+ *
+ * Java source with fully unrolled loops, weights as constants and inlined tanh, sigmoid
+ * and linear functions is generated and compiled in memory with the system Java compiler,
+ * so JDK is needed at runtime. Other transfer functions are called through the network.
+ * Evaluation order of every sum is same as in {@link FlatForwardNetwork}, so compiled
+ * network gives same outputs.
+ */
+public class NetworkCompiler {
+
+    /**
+     * Each weight takes about 7 bytes of bytecode and HotSpot does not JIT compile
+     * methods larger than 8000 bytes, so larger networks would only run interpreted
+     */
+    public static final int MAX_WEIGHTS = 1000;
+
+    private static final String PACKAGE = "com.msuflaj.network.compiled";
+
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        public SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        public ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static class MemoryClassLoader extends ClassLoader {
+
+        private final Map<String, ClassFile> classes;
+
+        public MemoryClassLoader(ClassLoader parent, Map<String, ClassFile> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ClassFile file = classes.get(name);
+            if (null == file) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytes = file.bytes.toByteArray();
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * @param network Network to compile, its weights are copied
+     * @return Compiled network
+     * @throws NetworkException If network is too large or compiler is not available
+     */
+    public CompiledNetwork compile(Network network) throws NetworkException {
+
+        double[] weights = network.getWeights();
+
+        if (weights.length > MAX_WEIGHTS) {
+            throw new NetworkException("Network with more than " + MAX_WEIGHTS + " weights can not be compiled");
+        }
+
+        for (double w : weights) {
+            if (Double.isNaN(w) || Double.isInfinite(w)) {
+                throw new NetworkException("Network with non finite weights can not be compiled");
+            }
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+        if (null == compiler) {
+            throw new NetworkException("Java compiler is not available");
+        }
+
+        String simpleName = "Network" + counter.incrementAndGet();
+        String className = PACKAGE + "." + simpleName;
+
+        String source = generate(simpleName, network.getDimensions(), network.getTransferFunctions(), network.isBiased(), weights);
+
+        final Map<String, ClassFile> classes = new HashMap<>();
+
+        JavaFileManager fileManager = new ForwardingJavaFileManager<JavaFileManager>(
+            compiler.getStandardFileManager(null, null, null)
+        ) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                ClassFile file = new ClassFile(name);
+                classes.put(name, file);
+                return file;
+            }
+        };
+
+        List<String> options = new ArrayList<>();
+        options.add("-classpath");
+        options.add(getClassPath());
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        boolean success = compiler.getTask(
+            null, fileManager, diagnostics, options, null,
+            Collections.singletonList(new SourceFile(className, source))
+        ).call();
+
+        if (!success) {
+            throw new NetworkException("Unable to compile network: " + diagnostics.getDiagnostics());
+        }
+
+        try {
+            Class<?> type = new MemoryClassLoader(CompiledNetwork.class.getClassLoader(), classes).loadClass(className);
+            return (CompiledNetwork) type.getConstructor(int[].class, TransferFunction[].class, boolean.class, double[].class)
+                .newInstance(network.getDimensions(), network.getTransferFunctions(), network.isBiased(), weights);
+        } catch (Exception e) {
+            throw new NetworkException("Unable to load compiled network", e);
+        }
+    }
+
+    private static String getClassPath() {
+        String path = System.getProperty("java.class.path");
+        try {
+            File location = new File(CompiledNetwork.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return location.getPath() + File.pathSeparator + path;
+        } catch (Exception e) {
+            return path;
+        }
+    }
+
+    /**
+     * Generates source of the network class
+     */
+    protected String generate(String simpleName, int[] dimensions, TransferFunction[] functions, boolean isBiased, double[] weights) {
+
+        StringBuilder builder = new StringBuilder();
+
+        builder.append("package ").append(PACKAGE).append(";\n\n");
+        builder.append("public final class ").append(simpleName).append(" extends ").append(CompiledNetwork.class.getName()).append(" {\n\n");
+        builder.append("    public ").append(simpleName).append("(int[] d, ")
+            .append(TransferFunction.class.getName()).append("[] f, boolean b, double[] w) {\n");
+        builder.append("        super(d, f, b, w);\n");
+        builder.append("    }\n\n");
+        builder.append("    @Override\n");
+        builder.append("    protected void evaluate(double[] in, double[] out) {\n");
+
+        for (int k = 0; k < dimensions[0]; k++) {
+            builder.append("        double a0_").append(k).append(" = in[").append(k).append("];\n");
+        }
+
+        int offset = 0;
+        int last = dimensions.length - 1;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            for (int j = 0; j < dimensions[i]; j++) {
+
+                StringBuilder sum = new StringBuilder("0.0");
+
+                for (int k = 0; k < dimensions[i - 1]; k++) {
+                    double w = weights[offset++];
+                    if (0 != w) {
+                        sum.append(" + ").append(literal(w)).append(" * a").append(i - 1).append('_').append(k);
+                    }
+                }
+
+                if (isBiased) {
+                    double w = weights[offset++];
+                    if (0 != w) {
+                        sum.append(" + ").append(literal(w));
+                    }
+                }
+
+                if (i < last) {
+                    builder.append("        double a").append(i).append('_').append(j).append(" = ");
+                } else {
+                    builder.append("        out[").append(j).append("] = ");
+                }
+
+                builder.append(transfer(functions[i - 1], i - 1, sum.toString())).append(";\n");
+            }
+        }
+
+        builder.append("    }\n");
+        builder.append("}\n");
+
+        return builder.toString();
+    }
+
+    private static String literal(double value) {
+        return "(" + Double.toString(value) + ")";
+    }
+
+    private static String transfer(TransferFunction function, int index, String sum) {
+        if (TanHFunction.class == function.getClass()) {
+            return "Math.tanh(" + sum + ")";
+        } else if (SigmoidFunction.class == function.getClass()) {
+            return "1 / (1 + Math.exp(-(" + sum + ")))";
+        } else if (LinearFunction.class == function.getClass()) {
+            return "(" + sum + ") * " + literal(function.getParams()[0]);
+        }
+        return "transferFunctions[" + index + "].calculate(" + sum + ")";
+    }
+
+}
@@ -0,0 +1,336 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Inference network with 8 bit weights and 32 bit accumulators.
+ *
+ * Each layer has its own input scale (obtained by calibration) and weights scale. Inputs
+ * of layer are quantized to [-127, 127] with input scale, multiplied with quantized weights
+ * in integer arithmetic and accumulated together with bias that is stored as 32 bit value
+ * in accumulator units. Accumulator is then scaled back and passed to transfer function.
+ */
+public class QuantizedNetwork implements Network {
+
+    public static final int LEVELS = 127;
+
+    protected final int inputNeuronsCount;
+
+    protected final int outputNeuronsCount;
+
+    protected final int weightsOffset;
+
+    protected final int[] dimensions;
+
+    protected final TransferFunction[] transferFunctions;
+
+    protected final boolean isBiased;
+
+    /**
+     * Quantized weights for layer i + 1 without bias, each of size dimensions[i + 1] * dimensions[i]
+     */
+    protected final byte[][] weights;
+
+    /**
+     * Bias of each neuron in accumulator units, empty if network is not biased
+     */
+    protected final int[][] biases;
+
+    protected final double[] inputScales;
+
+    protected final double[] weightsScales;
+
+    protected final Session session;
+
+    public class QuantizedSession implements Session {
+
+        private final double[][] activations;
+
+        private final byte[] quantized;
+
+        public QuantizedSession() {
+            activations = new double[dimensions.length][];
+
+            int max = 0;
+
+            for (int i = 0; i < dimensions.length; i++) {
+                activations[i] = new double[dimensions[i]];
+                max = Math.max(max, dimensions[i]);
+            }
+
+            quantized = new byte[max];
+        }
+
+        @Override
+        public double[] process(double[] values) throws NetworkException {
+            double[] output = new double[outputNeuronsCount];
+            process(values, output);
+            return output;
+        }
+
+        @Override
+        public void process(double[] values, double[] ret) throws NetworkException {
+
+            System.arraycopy(values, 0, activations[0], 0, inputNeuronsCount);
+
+            for (int i = 1; i < dimensions.length; i++) {
+                double[] in = activations[i - 1];
+                double[] out = activations[i];
+                byte[] w = weights[i - 1];
+                int[] b = biases[i - 1];
+                TransferFunction function = transferFunctions[i - 1];
+
+                int size = dimensions[i - 1];
+
+                quantize(in, inputScales[i - 1], quantized, size);
+
+                double scale = inputScales[i - 1] * weightsScales[i - 1];
+
+                for (int j = 0, l = dimensions[i], offset = 0; j < l; j++, offset += size) {
+                    int sum = isBiased ? b[j] : 0;
+                    for (int k = 0; k < size; k++) {
+                        sum += w[offset + k] * quantized[k];
+                    }
+                    out[j] = function.calculate(sum * scale);
+                }
+            }
+
+            System.arraycopy(activations[dimensions.length - 1], 0, ret, 0, outputNeuronsCount);
+        }
+
+        @Override
+        public void process(double[][] values, double[][] ret) throws NetworkException {
+
+            if (values.length != ret.length) {
+                throw new NetworkException("Input and output arrays must have same number of samples");
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                process(values[i], ret[i]);
+            }
+        }
+    }
+
+    /**
+     * @param dimensions Network dimensions
+     * @param functions Transfer function for each layer except input
+     * @param isBiased Whether each non-output layer has biased neuron
+     * @param inputScales Scale of quantized inputs for each layer except input
+     */
+    public QuantizedNetwork(int[] dimensions, TransferFunction[] functions, boolean isBiased, double[] inputScales) throws NetworkException {
+        if (dimensions.length < 2) {
+            throw new NetworkException("Layer count can not be less than two");
+        }
+
+        if (dimensions.length - 1 != functions.length) {
+            throw new NetworkException("Input neurons do not need transfer function (only hidden and output layers)");
+        }
+
+        if (dimensions.length - 1 != inputScales.length) {
+            throw new NetworkException("Each layer except input layer needs input scale");
+        }
+
+        for (int i = 0; i < dimensions.length; i++) {
+            if (dimensions[i] < 1) {
+                throw new NetworkException("Number of neurons in layer " + i + " must be greater than 0");
+            }
+        }
+
+        for (double scale : inputScales) {
+            if (!(scale > 0)) {
+                throw new NetworkException("Input scales must be greater than 0");
+            }
+        }
+
+        int extra = isBiased ? 1 : 0;
+
+        weights = new byte[dimensions.length - 1][];
+        biases = new int[dimensions.length - 1][];
+
+        int offset = 0;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            weights[i - 1] = new byte[dimensions[i] * dimensions[i - 1]];
+            biases[i - 1] = new int[dimensions[i] * extra];
+            offset += dimensions[i] * (dimensions[i - 1] + extra);
+        }
+
+        this.inputNeuronsCount = dimensions[0];
+        this.outputNeuronsCount = dimensions[dimensions.length - 1];
+        this.weightsOffset = offset;
+        this.isBiased = isBiased;
+        this.dimensions = dimensions.clone();
+        this.transferFunctions = functions.clone();
+        this.inputScales = inputScales.clone();
+        this.weightsScales = new double[dimensions.length - 1];
+
+        session = createSession();
+    }
+
+    private static void quantize(double[] values, double scale, byte[] ret, int length) {
+        for (int i = 0; i < length; i++) {
+            ret[i] = (byte) clamp(Math.round(values[i] / scale));
+        }
+    }
+
+    private static long clamp(long value) {
+        if (value > LEVELS) {
+            return LEVELS;
+        } else if (value < -LEVELS) {
+            return -LEVELS;
+        }
+        return value;
+    }
+
+    public int getOutputNeuronsCount() {
+        return outputNeuronsCount;
+    }
+
+    public double[] getInputScales() {
+        return inputScales;
+    }
+
+    public double[] getWeightsScales() {
+        return weightsScales;
+    }
+
+    /**
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @return Backing quantized weights of the layer, without bias
+     */
+    public byte[] getQuantizedWeights(int layer) {
+        return weights[layer - 1];
+    }
+
+    /**
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @return Backing biases of the layer in accumulator units
+     */
+    public int[] getQuantizedBiases(int layer) {
+        return biases[layer - 1];
+    }
+
+    @Override
+    public boolean isBiased() {
+        return isBiased;
+    }
+
+    @Override
+    public TransferFunction[] getTransferFunctions() {
+        return transferFunctions;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return Dequantized weights in same ordering as {@link FullyConnectedForwardNetwork#getWeights()}
+     */
+    @Override
+    public double[] getWeights() {
+        double[] ret = new double[weightsOffset];
+
+        int offset = 0;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            byte[] w = weights[i - 1];
+            double scale = weightsScales[i - 1];
+            double biasScale = inputScales[i - 1] * scale;
+            int size = dimensions[i - 1];
+
+            for (int j = 0; j < dimensions[i]; j++) {
+                for (int k = 0; k < size; k++) {
+                    ret[offset++] = w[j * size + k] * scale;
+                }
+                if (isBiased) {
+                    ret[offset++] = biases[i - 1][j] * biasScale;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int getWeightsCount() {
+        return weightsOffset;
+    }
+
+    /**
+     * Quantizes given weights, scale of each layer is chosen so that largest weight maps to {@link #LEVELS}
+     *
+     * @param weights Weights in same ordering as {@link FullyConnectedForwardNetwork#getWeights()}
+     */
+    @Override
+    public void setWeights(double[] weights) {
+
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int size = dimensions[i - 1];
+
+            double max = 0;
+
+            for (int j = 0, o = offset; j < dimensions[i]; j++, o += size + extra) {
+                for (int k = 0; k < size; k++) {
+                    max = Math.max(max, Math.abs(weights[o + k]));
+                }
+            }
+
+            double scale = max > 0 ? max / LEVELS : 1. / LEVELS;
+            double biasScale = inputScales[i - 1] * scale;
+
+            weightsScales[i - 1] = scale;
+
+            byte[] w = this.weights[i - 1];
+
+            for (int j = 0; j < dimensions[i]; j++) {
+                for (int k = 0; k < size; k++) {
+                    w[j * size + k] = (byte) clamp(Math.round(weights[offset++] / scale));
+                }
+                if (isBiased) {
+                    biases[i - 1][j] = (int) Math.round(weights[offset++] / biasScale);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets already quantized weights of a layer
+     *
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @param scale Weights scale
+     * @param weights Quantized weights without bias
+     * @param biases Biases in accumulator units
+     */
+    public void setQuantizedWeights(int layer, double scale, byte[] weights, int[] biases) {
+        if (weights.length != this.weights[layer - 1].length || biases.length != this.biases[layer - 1].length) {
+            throw new IllegalArgumentException("Weights and biases must match layer dimensions");
+        }
+        weightsScales[layer - 1] = scale;
+        System.arraycopy(weights, 0, this.weights[layer - 1], 0, weights.length);
+        System.arraycopy(biases, 0, this.biases[layer - 1], 0, biases.length);
+    }
+
+    @Override
+    public Session createSession() {
+        return new QuantizedSession();
+    }
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        return session.process(values);
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+}
@@ -0,0 +1,22 @@
+package com.msuflaj.network;
+
+/**
+ * Inference state of a single thread.
+ *
+ * Session reads weights of the network that created it and keeps all intermediate
+ * results in its own buffers, so any number of sessions can be used concurrently
+ * as long as nobody modifies weights of the network. Single session must not be
+ * shared between threads.
+ */
+public interface Session {
+
+    public double[] process(double[] values)
+        throws NetworkException;
+
+    public void process(double[] values, double[] ret)
+        throws NetworkException;
+
+    public void process(double[][] values, double[][] ret)
+        throws NetworkException;
+
+}
@@ -0,0 +1,328 @@
+package com.msuflaj.network;
+
+import com.msuflaj.transfer.TransferFunction;
+
+/**
+ * Fully connected forward network that stores only non-zero weights of each layer in
+ * compressed sparse row format, so inference cost and memory scale with number of
+ * non-zero weights. Biased neuron is column dimensions[i - 1] of layer i.
+ *
+ * Dense weights ordering is same as in {@link FullyConnectedForwardNetwork}, setting
+ * weights rebuilds sparsity pattern from non-zero values.
+ */
+public class SparseNetwork implements Network {
+
+    protected final int inputNeuronsCount;
+
+    protected final int outputNeuronsCount;
+
+    protected final int weightsOffset;
+
+    protected final int[] dimensions;
+
+    protected final TransferFunction[] transferFunctions;
+
+    protected final boolean isBiased;
+
+    /**
+     * For layer i + 1, non-zeros of neuron j are in [rows[i][j], rows[i][j + 1])
+     */
+    protected final int[][] rows;
+
+    protected int[][] columns;
+
+    protected double[][] values;
+
+    protected final Session session;
+
+    public class SparseSession implements Session {
+
+        private final double[][] activations;
+
+        public SparseSession() {
+            int extra = isBiased ? 1 : 0;
+
+            activations = new double[dimensions.length][];
+
+            for (int i = 0; i < dimensions.length - 1; i++) {
+                activations[i] = new double[dimensions[i] + extra];
+                if (isBiased) {
+                    activations[i][dimensions[i]] = 1;
+                }
+            }
+
+            activations[dimensions.length - 1] = new double[outputNeuronsCount];
+        }
+
+        @Override
+        public double[] process(double[] values) throws NetworkException {
+            double[] output = new double[outputNeuronsCount];
+            process(values, output);
+            return output;
+        }
+
+        @Override
+        public void process(double[] values, double[] ret) throws NetworkException {
+
+            System.arraycopy(values, 0, activations[0], 0, inputNeuronsCount);
+
+            for (int i = 1; i < dimensions.length; i++) {
+                double[] in = activations[i - 1];
+                double[] out = activations[i];
+                int[] r = rows[i - 1];
+                int[] c = columns[i - 1];
+                double[] v = SparseNetwork.this.values[i - 1];
+                TransferFunction function = transferFunctions[i - 1];
+
+                for (int j = 0, l = dimensions[i]; j < l; j++) {
+                    double sum = 0;
+                    for (int k = r[j], end = r[j + 1]; k < end; k++) {
+                        sum += v[k] * in[c[k]];
+                    }
+                    out[j] = function.calculate(sum);
+                }
+            }
+
+            System.arraycopy(activations[dimensions.length - 1], 0, ret, 0, outputNeuronsCount);
+        }
+
+        @Override
+        public void process(double[][] values, double[][] ret) throws NetworkException {
+
+            if (values.length != ret.length) {
+                throw new NetworkException("Input and output arrays must have same number of samples");
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                process(values[i], ret[i]);
+            }
+        }
+    }
+
+    public SparseNetwork(int[] dimensions, TransferFunction[] functions, boolean isBiased) throws NetworkException {
+        if (dimensions.length < 2) {
+            throw new NetworkException("Layer count can not be less than two");
+        }
+
+        if (dimensions.length - 1 != functions.length) {
+            throw new NetworkException("Input neurons do not need transfer function (only hidden and output layers)");
+        }
+
+        for (int i = 0; i < dimensions.length; i++) {
+            if (dimensions[i] < 1) {
+                throw new NetworkException("Number of neurons in layer " + i + " must be greater than 0");
+            }
+        }
+
+        int extra = isBiased ? 1 : 0;
+
+        rows = new int[dimensions.length - 1][];
+        columns = new int[dimensions.length - 1][];
+        values = new double[dimensions.length - 1][];
+
+        int offset = 0;
+
+        for (int i = 1; i < dimensions.length; i++) {
+            rows[i - 1] = new int[dimensions[i] + 1];
+            columns[i - 1] = new int[0];
+            values[i - 1] = new double[0];
+            offset += dimensions[i] * (dimensions[i - 1] + extra);
+        }
+
+        this.inputNeuronsCount = dimensions[0];
+        this.outputNeuronsCount = dimensions[dimensions.length - 1];
+        this.weightsOffset = offset;
+        this.isBiased = isBiased;
+        this.dimensions = dimensions.clone();
+        this.transferFunctions = functions.clone();
+
+        session = createSession();
+    }
+
+    /**
+     * Creates sparse copy of given network
+     */
+    public SparseNetwork(Network network) throws NetworkException {
+        this(network.getDimensions(), network.getTransferFunctions(), network.isBiased());
+        setWeights(network.getWeights());
+    }
+
+    public int getOutputNeuronsCount() {
+        return outputNeuronsCount;
+    }
+
+    /**
+     * @return Number of stored weights
+     */
+    public int getNonZerosCount() {
+        int count = 0;
+        for (double[] layer : values) {
+            count += layer.length;
+        }
+        return count;
+    }
+
+    /**
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @return Backing row pointers of the layer
+     */
+    public int[] getRows(int layer) {
+        return rows[layer - 1];
+    }
+
+    /**
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @return Backing column indices of the layer
+     */
+    public int[] getColumns(int layer) {
+        return columns[layer - 1];
+    }
+
+    /**
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @return Backing non-zero values of the layer
+     */
+    public double[] getValues(int layer) {
+        return values[layer - 1];
+    }
+
+    /**
+     * Sets already compressed weights of a layer
+     *
+     * @param layer Layer index (1-based, same as in dimensions)
+     * @param rows Row pointers, one more than neurons in the layer
+     * @param columns Column indices of non-zeros, increasing within each row
+     * @param values Non-zero values
+     */
+    public void setSparseWeights(int layer, int[] rows, int[] columns, double[] values) {
+        int size = dimensions[layer - 1] + (isBiased ? 1 : 0);
+        int[] r = this.rows[layer - 1];
+
+        if (rows.length != r.length || columns.length != values.length || 0 != rows[0] || columns.length != rows[rows.length - 1]) {
+            throw new IllegalArgumentException("Rows, columns and values must match layer dimensions");
+        }
+
+        for (int j = 1; j < rows.length; j++) {
+            if (rows[j] < rows[j - 1]) {
+                throw new IllegalArgumentException("Row pointers must not decrease");
+            }
+            for (int k = rows[j - 1]; k < rows[j]; k++) {
+                if (columns[k] < 0 || columns[k] >= size || (k > rows[j - 1] && columns[k] <= columns[k - 1])) {
+                    throw new IllegalArgumentException("Column indices must increase within a row and match layer dimensions");
+                }
+            }
+        }
+
+        System.arraycopy(rows, 0, r, 0, rows.length);
+        this.columns[layer - 1] = columns.clone();
+        this.values[layer - 1] = values.clone();
+    }
+
+    @Override
+    public boolean isBiased() {
+        return isBiased;
+    }
+
+    @Override
+    public TransferFunction[] getTransferFunctions() {
+        return transferFunctions;
+    }
+
+    @Override
+    public int[] getDimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public double[] getWeights() {
+        double[] ret = new double[weightsOffset];
+
+        int extra = isBiased ? 1 : 0;
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int size = dimensions[i - 1] + extra;
+            int[] r = rows[i - 1];
+            int[] c = columns[i - 1];
+            double[] v = values[i - 1];
+
+            for (int j = 0; j < dimensions[i]; j++, offset += size) {
+                for (int k = r[j]; k < r[j + 1]; k++) {
+                    ret[offset + c[k]] = v[k];
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int getWeightsCount() {
+        return weightsOffset;
+    }
+
+    @Override
+    public void setWeights(double[] weights) {
+
+        int extra = isBiased ? 1 : 0;
+
+        int[][] columns = new int[dimensions.length - 1][];
+        double[][] values = new double[dimensions.length - 1][];
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int size = dimensions[i - 1] + extra;
+            int layerSize = dimensions[i] * size;
+
+            int count = 0;
+
+            for (int k = 0; k < layerSize; k++) {
+                if (0 != weights[offset + k]) {
+                    count++;
+                }
+            }
+
+            int[] r = rows[i - 1];
+            int[] c = new int[count];
+            double[] v = new double[count];
+
+            count = 0;
+
+            for (int j = 0; j < dimensions[i]; j++, offset += size) {
+                r[j] = count;
+                for (int k = 0; k < size; k++) {
+                    if (0 != weights[offset + k]) {
+                        c[count] = k;
+                        v[count++] = weights[offset + k];
+                    }
+                }
+            }
+
+            r[dimensions[i]] = count;
+
+            columns[i - 1] = c;
+            values[i - 1] = v;
+        }
+
+        this.columns = columns;
+        this.values = values;
+    }
+
+    @Override
+    public Session createSession() {
+        return new SparseSession();
+    }
+
+    @Override
+    public double[] process(double[] values) throws NetworkException {
+        return session.process(values);
+    }
+
+    @Override
+    public void process(double[] values, double[] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+
+    @Override
+    public void process(double[][] values, double[][] ret) throws NetworkException {
+        session.process(values, ret);
+    }
+}
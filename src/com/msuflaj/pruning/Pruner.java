@@ -0,0 +1,132 @@
+package com.msuflaj.pruning;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.network.SparseNetwork;
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.trainer.PropagationTrainer;
+import com.msuflaj.trainer.Trainer;
+import com.msuflaj.trainer.UnexpectedNetworkException;
+
+import java.util.*;
+
+/**
+ * Magnitude pruning of fully connected networks.
+ *
+ * Masks are in {@link Network#getWeights()} ordering where true means that weight survives.
+ * Bias weights are never pruned.
+ */
+public class Pruner {
+
+    /**
+     * @param network Network to prune
+     * @param threshold Weights with absolute value below threshold are removed
+     * @return Mask of surviving weights
+     */
+    public boolean[] byThreshold(Network network, double threshold) {
+        double[] weights = network.getWeights();
+        boolean[] isBias = getBiasFlags(network);
+        boolean[] mask = new boolean[weights.length];
+
+        for (int i = 0; i < weights.length; i++) {
+            mask[i] = isBias[i] || Math.abs(weights[i]) >= threshold;
+        }
+
+        return mask;
+    }
+
+    /**
+     * @param network Network to prune
+     * @param sparsity Fraction of non-bias weights to remove, in [0, 1]
+     * @return Mask of surviving weights
+     */
+    public boolean[] bySparsity(Network network, double sparsity) {
+        if (sparsity < 0 || sparsity > 1) {
+            throw new IllegalArgumentException("Sparsity must be in [0, 1]");
+        }
+
+        final double[] weights = network.getWeights();
+        boolean[] isBias = getBiasFlags(network);
+
+        List<Integer> candidates = new ArrayList<>();
+
+        for (int i = 0; i < weights.length; i++) {
+            if (!isBias[i]) {
+                candidates.add(i);
+            }
+        }
+
+        Collections.sort(candidates, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(Math.abs(weights[a]), Math.abs(weights[b]));
+            }
+        });
+
+        boolean[] mask = new boolean[weights.length];
+        Arrays.fill(mask, true);
+
+        for (int i = 0, removed = (int) Math.round(sparsity * candidates.size()); i < removed; i++) {
+            mask[candidates.get(i)] = false;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Sets weights that are not in mask to 0
+     */
+    public void apply(Network network, boolean[] mask) {
+        double[] weights = network.getWeights();
+
+        for (int i = 0; i < weights.length; i++) {
+            if (!mask[i]) {
+                weights[i] = 0;
+            }
+        }
+
+        network.setWeights(weights);
+    }
+
+    /**
+     * Trains only surviving weights, starting from current weights of the network
+     *
+     * @return Error rate
+     */
+    public double fineTune(Network network, DataSet dataSet, PropagationTrainer trainer, boolean[] mask,
+                           Trainer.StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+        trainer.setMask(mask);
+        try {
+            return trainer.train(network, dataSet, stopCondition, statistics);
+        } finally {
+            trainer.setMask(null);
+        }
+    }
+
+    /**
+     * @return Sparse copy of the network without zero weights
+     */
+    public SparseNetwork compress(Network network) throws NetworkException {
+        return new SparseNetwork(network);
+    }
+
+    private static boolean[] getBiasFlags(Network network) {
+        int[] dimensions = network.getDimensions();
+        boolean[] flags = new boolean[network.getWeightsCount()];
+
+        if (!network.isBiased()) {
+            return flags;
+        }
+
+        for (int i = 1, offset = 0; i < dimensions.length; i++) {
+            int size = dimensions[i - 1] + 1;
+            for (int j = 0; j < dimensions[i]; j++, offset += size) {
+                flags[offset + size - 1] = true;
+            }
+        }
+
+        return flags;
+    }
+
+}
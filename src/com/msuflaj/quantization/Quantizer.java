@@ -0,0 +1,83 @@
+package com.msuflaj.quantization;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.FlatForwardNetwork;
+import com.msuflaj.network.LayeredSession;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.network.QuantizedNetwork;
+
+/**
+ * Post-training quantization of fully connected networks.
+ *
+ * Input scale of each layer is calibrated as largest absolute activation that enters the
+ * layer while processing calibration data set, weights scale is calculated per layer from
+ * largest absolute weight.
+ */
+public class Quantizer {
+
+    /**
+     * @param network Trained network
+     * @param calibration Samples used to find activation ranges
+     * @return Quantized copy of the network
+     */
+    public QuantizedNetwork quantize(Network network, DataSet calibration) throws NetworkException {
+
+        if (calibration.first.length < 1) {
+            throw new NetworkException("Calibration data set can not be empty");
+        }
+
+        double[] maxima = calibrate(network, calibration);
+
+        double[] inputScales = new double[maxima.length];
+
+        for (int i = 0; i < maxima.length; i++) {
+            inputScales[i] = maxima[i] > 0 ? maxima[i] / QuantizedNetwork.LEVELS : 1. / QuantizedNetwork.LEVELS;
+        }
+
+        QuantizedNetwork quantized = new QuantizedNetwork(
+            network.getDimensions(), network.getTransferFunctions(), network.isBiased(), inputScales
+        );
+
+        quantized.setWeights(network.getWeights());
+
+        return quantized;
+    }
+
+    /**
+     * @return Largest absolute value of inputs of each layer except input layer
+     */
+    private double[] calibrate(Network network, DataSet calibration) throws NetworkException {
+        int[] dimensions = network.getDimensions();
+
+        FlatForwardNetwork flat;
+
+        if (network instanceof FlatForwardNetwork) {
+            flat = (FlatForwardNetwork) network;
+        } else {
+            flat = new FlatForwardNetwork(dimensions, network.getTransferFunctions(), network.isBiased());
+            flat.setWeights(network.getWeights());
+        }
+
+        LayeredSession session = flat.createSession();
+
+        double[] maxima = new double[dimensions.length - 1];
+        double[] output = new double[dimensions[dimensions.length - 1]];
+
+        for (double[] sample : calibration.first) {
+
+            session.process(sample, output);
+
+            for (int i = 1; i < dimensions.length; i++) {
+                double[] in = session.getActivations(i - 1);
+
+                for (int k = 0; k < dimensions[i - 1]; k++) {
+                    maxima[i - 1] = Math.max(maxima[i - 1], Math.abs(in[k]));
+                }
+            }
+        }
+
+        return maxima;
+    }
+
+}
@@ -17,12 +17,20 @@ public class Statistics {
 
     public static final int START = 16;
 
+    public static final int VALIDATION_ERROR = 32;
+
+    public static final int BEST_VALIDATION_ERROR = 64;
+
     private int iteration;
 
     private double currentError;
 
     private double bestError = Double.MAX_VALUE;
 
+    private double validationError = Double.MAX_VALUE;
+
+    private double bestValidationError = Double.MAX_VALUE;
+
     private List<Pair<Listener, Integer>> registeredListeners;
 
     private long startTime;
@@ -47,6 +55,14 @@ public class Statistics {
         return bestError;
     }
 
+    public double getValidationError() {
+        return validationError;
+    }
+
+    public double getBestValidationError() {
+        return bestValidationError;
+    }
+
     public int getIteration() {
         return iteration;
     }
@@ -65,6 +81,15 @@ public class Statistics {
         update(ERROR);
     }
 
+    public void setValidationError(double error) {
+        validationError = error;
+        if (error < bestValidationError) {
+            bestValidationError = error;
+            update(BEST_VALIDATION_ERROR);
+        }
+        update(VALIDATION_ERROR);
+    }
+
     public void signalFinish() {
         finishTime = System.currentTimeMillis();
         update(FINISH);
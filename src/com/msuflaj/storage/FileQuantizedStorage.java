@@ -0,0 +1,79 @@
+package com.msuflaj.storage;
+
+import com.msuflaj.network.QuantizedNetwork;
+
+import java.io.*;
+
+/**
+ * Stores quantized networks. For each layer input scale, weights scale, 8 bit weights and
+ * 32 bit biases are written, dimensions are not stored.
+ */
+public class FileQuantizedStorage {
+
+    private final File file;
+
+    public FileQuantizedStorage(File file) {
+        this.file = file;
+    }
+
+    public boolean store(QuantizedNetwork net) {
+        DataOutputStream stream = null;
+        try {
+            stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            for (int i = 1; i < net.getDimensions().length; i++) {
+                stream.writeDouble(net.getInputScales()[i - 1]);
+                stream.writeDouble(net.getWeightsScales()[i - 1]);
+                stream.write(net.getQuantizedWeights(i));
+                for (int b : net.getQuantizedBiases(i)) {
+                    stream.writeInt(b);
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (null != stream) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param net Network with matching dimensions, its scales and weights are overwritten
+     */
+    public boolean load(QuantizedNetwork net) {
+        DataInputStream stream = null;
+        try {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            for (int i = 1; i < net.getDimensions().length; i++) {
+                net.getInputScales()[i - 1] = stream.readDouble();
+                double scale = stream.readDouble();
+                byte[] weights = new byte[net.getQuantizedWeights(i).length];
+                int[] biases = new int[net.getQuantizedBiases(i).length];
+                stream.readFully(weights);
+                for (int j = 0; j < biases.length; j++) {
+                    biases[j] = stream.readInt();
+                }
+                net.setQuantizedWeights(i, scale, weights, biases);
+            }
+            if (stream.read() >= 0) {
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (null != stream) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+
+                }
+            }
+        }
+        return true;
+    }
+}
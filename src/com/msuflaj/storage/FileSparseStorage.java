@@ -0,0 +1,92 @@
+package com.msuflaj.storage;
+
+import com.msuflaj.network.SparseNetwork;
+
+import java.io.*;
+
+/**
+ * Stores sparse networks in compressed sparse row format. For each layer number of non-zeros,
+ * row pointers, column indices and values are written, dimensions are not stored.
+ */
+public class FileSparseStorage {
+
+    private final File file;
+
+    public FileSparseStorage(File file) {
+        this.file = file;
+    }
+
+    public boolean store(SparseNetwork net) {
+        DataOutputStream stream = null;
+        try {
+            stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            for (int i = 1; i < net.getDimensions().length; i++) {
+                int[] columns = net.getColumns(i);
+                stream.writeInt(columns.length);
+                for (int r : net.getRows(i)) {
+                    stream.writeInt(r);
+                }
+                for (int c : columns) {
+                    stream.writeInt(c);
+                }
+                for (double v : net.getValues(i)) {
+                    stream.writeDouble(v);
+                }
+            }
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (null != stream) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param net Network with matching dimensions, its weights are overwritten
+     */
+    public boolean load(SparseNetwork net) {
+        DataInputStream stream = null;
+        try {
+            stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            for (int i = 1; i < net.getDimensions().length; i++) {
+                int count = stream.readInt();
+                if (count < 0 || count > net.getWeightsCount()) {
+                    return false;
+                }
+                int[] rows = new int[net.getRows(i).length];
+                int[] columns = new int[count];
+                double[] values = new double[count];
+                for (int j = 0; j < rows.length; j++) {
+                    rows[j] = stream.readInt();
+                }
+                for (int j = 0; j < count; j++) {
+                    columns[j] = stream.readInt();
+                }
+                for (int j = 0; j < count; j++) {
+                    values[j] = stream.readDouble();
+                }
+                net.setSparseWeights(i, rows, columns, values);
+            }
+            if (stream.read() >= 0) {
+                return false;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        } finally {
+            if (null != stream) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -15,12 +15,28 @@ public class FileWieghtsStorage implements WeightsStorage {
 
     @Override
     public boolean store(Network net) {
+        return store(net.getWeights());
+    }
+
+    @Override
+    public boolean load(Network net) {
+        double[] weights = load(net.getWeightsCount());
+        if (null == weights) {
+            return false;
+        }
+        net.setWeights(weights);
+        return true;
+    }
+
+    /**
+     * Stores raw values in same format as weights, used also for trainer state such as RPROP steps
+     */
+    public boolean store(double[] values) {
         BufferedOutputStream stream = null;
         try {
-            double[] weights = net.getWeights();
-            byte[] bytes = new byte[weights.length * Double.SIZE >> 3];
+            byte[] bytes = new byte[values.length * Double.SIZE >> 3];
             ByteBuffer buffer = ByteBuffer.wrap(bytes);
-            for (double d : weights) {
+            for (double d : values) {
                 buffer.putDouble(d);
             }
             stream = new BufferedOutputStream(new FileOutputStream(file));
@@ -39,24 +55,27 @@ public class FileWieghtsStorage implements WeightsStorage {
         return true;
     }
 
-    @Override
-    public boolean load(Network net) {
+    /**
+     * @param count Number of values expected in file
+     * @return Values or null when file can not be read or is too short
+     */
+    public double[] load(int count) {
         BufferedInputStream stream = null;
         try {
-            double[] weights = new double[net.getWeightsCount()];
-            byte[] bytes = new byte[weights.length * Double.SIZE >> 3];
+            double[] values = new double[count];
+            byte[] bytes = new byte[values.length * Double.SIZE >> 3];
             stream = new BufferedInputStream(new FileInputStream(file));
-            if (weights.length * (Double.SIZE >> 3) != stream.read(bytes)) {
+            if (values.length * (Double.SIZE >> 3) != stream.read(bytes)) {
                 stream.close();
-                return false;
+                return null;
             }
             ByteBuffer buffer = ByteBuffer.wrap(bytes);
-            for (int i = 0; i < weights.length; i++) {
-                weights[i] = buffer.getDouble();
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buffer.getDouble();
             }
-            net.setWeights(weights);
+            return values;
         } catch (IOException e) {
-            return false;
+            return null;
         } finally {
             if (null != stream) {
                 try {
@@ -66,6 +85,5 @@ public class FileWieghtsStorage implements WeightsStorage {
                 }
             }
         }
-        return true;
     }
 }
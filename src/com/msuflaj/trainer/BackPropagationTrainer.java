@@ -1,13 +1,65 @@
 package com.msuflaj.trainer;
 
+import com.msuflaj.network.Kernels;
+
 import java.util.Random;
 
 public class BackPropagationTrainer extends PropagationTrainer {
 
+    /**
+     * Plain gradient step, weights += ni * gradients
+     */
+    public static final int GRADIENT = 0;
+
+    /**
+     * Classical momentum, velocity = momentum * velocity + ni * gradients
+     */
+    public static final int MOMENTUM = 1;
+
+    /**
+     * Nesterov momentum, step is taken from the look-ahead velocity
+     */
+    public static final int NESTEROV = 2;
+
+    /**
+     * Adam with bias corrected first and second moments, ni is the step size
+     */
+    public static final int ADAM = 3;
+
+    private int optimizer = GRADIENT;
+
+    private double momentum = 0.9;
+
+    private double beta1 = 0.9;
+
+    private double beta2 = 0.999;
+
+    private double epsilon = 1e-8;
+
     private class ErrorNeuron extends PropagationTrainer.ErrorNeuron {
 
+        /**
+         * Velocity for momentum optimizers, first moment for Adam
+         */
+        private double[] velocities;
+
+        /**
+         * Second moment for Adam
+         */
+        private double[] moments;
+
+        private int steps;
+
         public ErrorNeuron(PropagationCompatibleNeuron neuron, PropagationTrainer.ErrorNeuron[] frontNeurons, int index) {
             super(neuron, frontNeurons, index);
+
+            if (GRADIENT != optimizer) {
+                velocities = new double[gradients.length];
+            }
+
+            if (ADAM == optimizer) {
+                moments = new double[gradients.length];
+            }
         }
 
         @Override
@@ -15,8 +67,33 @@ public class BackPropagationTrainer extends PropagationTrainer {
 
             double[] weights = neuron.getWeights();
 
-            for (int i = 0; i < weights.length; i++) {
-                weights[i] += ni * gradients[i];
+            switch (optimizer) {
+                case MOMENTUM:
+                    for (int i = 0; i < weights.length; i++) {
+                        velocities[i] = momentum * velocities[i] + ni * gradients[i];
+                        weights[i] += velocities[i];
+                    }
+                    break;
+                case NESTEROV:
+                    for (int i = 0; i < weights.length; i++) {
+                        double previous = velocities[i];
+                        velocities[i] = momentum * previous + ni * gradients[i];
+                        weights[i] += (1 + momentum) * velocities[i] - momentum * previous;
+                    }
+                    break;
+                case ADAM:
+                    steps++;
+                    double correction1 = 1 - Math.pow(beta1, steps);
+                    double correction2 = 1 - Math.pow(beta2, steps);
+                    for (int i = 0; i < weights.length; i++) {
+                        double g = gradients[i];
+                        velocities[i] = beta1 * velocities[i] + (1 - beta1) * g;
+                        moments[i] = beta2 * moments[i] + (1 - beta2) * g * g;
+                        weights[i] += ni * (velocities[i] / correction1) / (Math.sqrt(moments[i] / correction2) + epsilon);
+                    }
+                    break;
+                default:
+                    Kernels.axpy(ni, gradients, 0, weights, 0, weights.length);
             }
 
         }
@@ -27,6 +104,43 @@ public class BackPropagationTrainer extends PropagationTrainer {
         super(ni, lo, hi, random);
     }
 
+    /**
+     * @param optimizer One of {@link #GRADIENT}, {@link #MOMENTUM}, {@link #NESTEROV} or {@link #ADAM}
+     */
+    public void setOptimizer(int optimizer) {
+        if (optimizer < GRADIENT || optimizer > ADAM) {
+            throw new IllegalArgumentException("Unknown optimizer " + optimizer);
+        }
+        this.optimizer = optimizer;
+    }
+
+    /**
+     * @param momentum Fraction of previous step kept by {@link #MOMENTUM} and {@link #NESTEROV}
+     */
+    public void setMomentum(double momentum) {
+        if (momentum < 0 || momentum >= 1) {
+            throw new IllegalArgumentException("Momentum must be in [0, 1)");
+        }
+        this.momentum = momentum;
+    }
+
+    /**
+     * @param beta1 Decay of first moment
+     * @param beta2 Decay of second moment
+     * @param epsilon Added to square root of second moment
+     */
+    public void setAdam(double beta1, double beta2, double epsilon) {
+        if (beta1 < 0 || beta1 >= 1 || beta2 < 0 || beta2 >= 1) {
+            throw new IllegalArgumentException("Betas must be in [0, 1)");
+        }
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("Epsilon must be positive");
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
     @Override
     protected PropagationTrainer.ErrorNeuron createErrorNeuron(PropagationCompatibleNeuron regularNeuron, PropagationTrainer.ErrorNeuron[] errorNeurons, int index) {
         return new ErrorNeuron(regularNeuron, errorNeurons, index);
@@ -36,4 +150,13 @@ public class BackPropagationTrainer extends PropagationTrainer {
     public boolean supportsOnlineMode() {
         return true;
     }
+
+    /**
+     * Hogwild workers take plain gradient steps, other optimizers keep per weight state
+     * and train online in calling thread
+     */
+    @Override
+    protected boolean supportsParallelOnlineMode() {
+        return GRADIENT == optimizer;
+    }
 }
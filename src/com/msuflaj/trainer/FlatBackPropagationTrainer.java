@@ -0,0 +1,20 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.network.Kernels;
+
+import java.util.Random;
+
+public class FlatBackPropagationTrainer extends FlatPropagationTrainer {
+
+    public FlatBackPropagationTrainer(double ni, double lo, double hi, Random random) {
+        super(ni, lo, hi, random);
+    }
+
+    @Override
+    protected void init(int weightsCount) { }
+
+    @Override
+    protected void updateWeights(double[] gradients, double[] weights) {
+        Kernels.axpy(ni, gradients, 0, weights, 0, weights.length);
+    }
+}
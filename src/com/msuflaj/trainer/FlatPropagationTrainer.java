@@ -0,0 +1,155 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Double precision propagation trainer that keeps weights, errors and gradients in flat arrays
+ * instead of {@link PropagationTrainer.ErrorNeuron} objects.
+ *
+ * Weights are in {@link Network#getWeights()} ordering and the pass over data set is done by
+ * {@link GradientCalculator}, which propagates errors backwards through transposed copy of
+ * weights with sequential reads. Nothing is allocated inside the epoch loop.
+ */
+public abstract class FlatPropagationTrainer implements InitializableTrainer, ValidatedTrainer {
+
+    private final double lo;
+
+    private final double hi;
+
+    private final Random random;
+
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    protected final double ni;
+
+    private GradientCalculator calculator;
+
+    private double[] weights;
+
+    /**
+     * Sum of descent directions over data set
+     */
+    private double[] gradients;
+
+    public FlatPropagationTrainer(double ni, double lo, double hi, Random random) {
+        if (ni < 0) {
+            throw new IllegalArgumentException("Ni must be positive");
+        }
+
+        if (lo >= hi) {
+            throw new IllegalArgumentException("Down boundary must be less than upper boundary");
+        }
+
+        this.ni = ni;
+        this.lo = lo;
+        this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
+        this.random = random;
+    }
+
+    @Override
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
+
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public double train(Network network, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+
+        int[] dimensions = network.getDimensions();
+        int extra = network.isBiased() ? 1 : 0;
+
+        calculator = new GradientCalculator(network);
+
+        int weightsCount = calculator.getWeightsCount();
+
+        if (weightsCount != network.getWeightsCount()) {
+            throw new UnexpectedNetworkException("Network weights count does not match its dimensions");
+        }
+
+        weights = new double[weightsCount];
+        gradients = new double[weightsCount];
+
+        initializer.initialize(dimensions, extra > 0, random, weights);
+
+        double[] bestWeights = weights.clone();
+
+        init(weightsCount);
+
+        double[][] in = dataSet.first;
+        double[][] out = dataSet.second;
+
+        int[] multiplicities = dataSet.getMultiplicities();
+        int sampleCount = dataSet.getSampleCount();
+
+        double error = calculator.calculateError(weights, in, out, multiplicities, sampleCount);
+        double bestError = error;
+
+        statistics.signalStart();
+        statistics.setError(error);
+
+        if (null != validation) {
+            validation.reset();
+            validate(network, statistics);
+        }
+
+        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
+
+            calculator.accumulate(weights, in, out, multiplicities, gradients);
+
+            updateWeights(gradients, weights);
+            Arrays.fill(gradients, 0);
+
+            error = calculator.calculateError(weights, in, out, multiplicities, sampleCount);
+
+            if (null == validation ? error < bestError : validation.isDue(i + 1) && validate(network, statistics)) {
+                System.arraycopy(weights, 0, bestWeights, 0, weightsCount);
+                bestError = error;
+            }
+
+            statistics.incrementIteration();
+            statistics.setError(error);
+        }
+
+        statistics.signalFinish();
+
+        network.setWeights(bestWeights);
+
+        return bestError;
+    }
+
+    private boolean validate(Network network, Statistics statistics) throws NetworkException {
+        network.setWeights(weights);
+        return validation.validate(network, statistics);
+    }
+
+    /**
+     * Called before training starts
+     *
+     * @param weightsCount Number of weights in network
+     */
+    protected abstract void init(int weightsCount);
+
+    /**
+     * Applies accumulated gradients to weights, gradients are cleared afterwards
+     *
+     * @param gradients Sum of descent directions over whole data set, in {@link Network#getWeights()} ordering
+     * @param weights Weights to update
+     */
+    protected abstract void updateWeights(double[] gradients, double[] weights);
+
+}
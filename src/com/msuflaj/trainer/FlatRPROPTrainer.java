@@ -0,0 +1,109 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class FlatRPROPTrainer extends FlatPropagationTrainer {
+
+    private double deltaInitial;
+
+    private double deltaMin;
+
+    private double deltaMax;
+
+    private double kMinus;
+
+    private double kPlus;
+
+    private double[] previousGradients;
+
+    private double[] deltas;
+
+    private double[] initialDeltas;
+
+    public FlatRPROPTrainer(double kMinus, double kPlus, double deltaInitial, double deltaMin, double deltaMax, double lo, double hi, Random random) {
+        super(0, lo, hi, random);
+        this.kMinus = kMinus;
+        this.kPlus = kPlus;
+        this.deltaMin = deltaMin;
+        this.deltaMax = deltaMax;
+        this.deltaInitial = deltaInitial;
+    }
+
+    /**
+     * @param deltas Step size of each weight in {@link Network#getWeights()} ordering, null to start from deltaInitial
+     * @see RPROPTrainer#setInitialDeltas(double[])
+     */
+    public void setInitialDeltas(double[] deltas) {
+        initialDeltas = null == deltas ? null : deltas.clone();
+    }
+
+    /**
+     * @return Step sizes after last training in {@link Network#getWeights()} ordering, null before training
+     */
+    public double[] getDeltas() {
+        return null == deltas ? null : deltas.clone();
+    }
+
+    @Override
+    public double train(Network network, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+        if (null != initialDeltas && initialDeltas.length != network.getWeightsCount()) {
+            throw new NetworkException("Initial deltas size does not match number of weights");
+        }
+        return super.train(network, dataSet, stopCondition, statistics);
+    }
+
+    @Override
+    protected void init(int weightsCount) {
+        previousGradients = new double[weightsCount];
+
+        if (null == initialDeltas) {
+            deltas = new double[weightsCount];
+            Arrays.fill(deltas, deltaInitial);
+        } else {
+            deltas = initialDeltas.clone();
+        }
+    }
+
+    @Override
+    protected void updateWeights(double[] gradients, double[] weights) {
+
+        for (int i = 0; i < weights.length; i++) {
+
+            double currentGradient = -gradients[i];
+
+            double gradientsMultiplied = currentGradient * previousGradients[i];
+
+            previousGradients[i] = currentGradient;
+
+            double currentDelta = deltas[i];
+
+            if (gradientsMultiplied > 0) {
+                currentDelta *= kPlus;
+            } else if (gradientsMultiplied < 0) {
+                currentDelta *= kMinus;
+            }
+
+            if (currentDelta > deltaMax) {
+                currentDelta = deltaMax;
+            } else if (currentDelta < deltaMin) {
+                currentDelta = deltaMin;
+            }
+
+            deltas[i] = currentDelta;
+
+            if (currentGradient > 0) {
+                weights[i] -= currentDelta;
+            } else if (currentGradient < 0) {
+                weights[i] += currentDelta;
+            }
+
+        }
+
+    }
+}
@@ -0,0 +1,22 @@
+package com.msuflaj.trainer;
+
+import java.util.Random;
+
+public class FloatBackPropagationTrainer extends FloatPropagationTrainer {
+
+    public FloatBackPropagationTrainer(double ni, double lo, double hi, Random random) {
+        super(ni, lo, hi, random);
+    }
+
+    @Override
+    protected void init(int weightsCount) { }
+
+    @Override
+    protected void updateWeights(float[] gradients, float[] weights) {
+        float ni = (float) this.ni;
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] += ni * gradients[i];
+        }
+    }
+}
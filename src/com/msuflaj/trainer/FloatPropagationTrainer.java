@@ -0,0 +1,278 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.transfer.TransferFunction;
+import com.msuflaj.util.ArrayConverter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Single precision propagation trainer that runs on the CPU.
+ *
+ * Uses same weights layout and arithmetic as {@link OpenCLPropagationTrainer} so that
+ * both implementations give consistent results, and works with any {@link Network}.
+ */
+public abstract class FloatPropagationTrainer implements InitializableTrainer, ValidatedTrainer {
+
+    private final double lo;
+
+    private final double hi;
+
+    private final Random random;
+
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    protected final double ni;
+
+    private int[] dimensions;
+
+    private TransferFunction[] functions;
+
+    private int extra;
+
+    private int[] weightsOffsets;
+
+    private float[][] outputs;
+
+    private float[][] layerErrors;
+
+    public FloatPropagationTrainer(double ni, double lo, double hi, Random random) {
+        if (ni < 0) {
+            throw new IllegalArgumentException("Ni must be positive");
+        }
+
+        if (lo >= hi) {
+            throw new IllegalArgumentException("Down boundary must be less than upper boundary");
+        }
+
+        this.ni = ni;
+        this.lo = lo;
+        this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
+        this.random = random;
+    }
+
+    @Override
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
+
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public double train(Network network, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+
+        dimensions = network.getDimensions();
+        functions = network.getTransferFunctions();
+        extra = network.isBiased() ? 1 : 0;
+
+        weightsOffsets = new int[dimensions.length];
+        outputs = new float[dimensions.length][];
+        layerErrors = new float[dimensions.length][];
+
+        for (int i = 0; i < dimensions.length; i++) {
+            int size = dimensions[i] + ((i + 1) < dimensions.length ? extra : 0);
+            outputs[i] = new float[size];
+            layerErrors[i] = new float[size];
+            if (extra > 0 && (i + 1) < dimensions.length) {
+                outputs[i][dimensions[i]] = 1;
+            }
+            if (i > 0) {
+                weightsOffsets[i] = weightsOffsets[i - 1] + dimensions[i] * (dimensions[i - 1] + extra);
+            }
+        }
+
+        int weightsCount = weightsOffsets[dimensions.length - 1];
+
+        if (weightsCount != network.getWeightsCount()) {
+            throw new UnexpectedNetworkException("Network weights count does not match its dimensions");
+        }
+
+        float[][] in = new float[dataSet.first.length][];
+        float[][] out = new float[dataSet.second.length][];
+
+        for (int i = 0; i < in.length; i++) {
+            in[i] = ArrayConverter.fromDoubleToFloat(dataSet.first[i]);
+            out[i] = ArrayConverter.fromDoubleToFloat(dataSet.second[i]);
+        }
+
+        float[] weights = new float[weightsCount];
+
+        double[] initial = new double[weights.length];
+        initializer.initialize(dimensions, extra > 0, random, initial);
+
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) initial[i];
+        }
+
+        float[] gradients = new float[weightsCount];
+
+        init(weightsCount);
+
+        int[] multiplicities = dataSet.getMultiplicities();
+        int sampleCount = dataSet.getSampleCount();
+
+        double error = calculateError(weights, in, out, multiplicities, sampleCount);
+        double bestError = error;
+        float[] bestWeights = weights.clone();
+
+        statistics.signalStart();
+        statistics.setError(error);
+
+        if (null != validation) {
+            validation.reset();
+            validate(network, weights, statistics);
+        }
+
+        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
+
+            for (int u = 0; u < in.length; u++) {
+                forward(weights, in[u]);
+                calculateLayerErrors(weights, out[u], multiplicities[u]);
+                calculateGradients(gradients);
+            }
+
+            updateWeights(gradients, weights);
+
+            Arrays.fill(gradients, 0);
+
+            error = calculateError(weights, in, out, multiplicities, sampleCount);
+
+            if (null == validation ? error < bestError : validation.isDue(i + 1) && validate(network, weights, statistics)) {
+                System.arraycopy(weights, 0, bestWeights, 0, weights.length);
+                bestError = error;
+            }
+
+            statistics.incrementIteration();
+            statistics.setError(error);
+        }
+
+        statistics.signalFinish();
+
+        network.setWeights(ArrayConverter.fromFloatToDouble(bestWeights));
+
+        return bestError;
+    }
+
+    private boolean validate(Network network, float[] weights, Statistics statistics) throws NetworkException {
+        network.setWeights(ArrayConverter.fromFloatToDouble(weights));
+        return validation.validate(network, statistics);
+    }
+
+    private void forward(float[] weights, float[] input) {
+
+        System.arraycopy(input, 0, outputs[0], 0, dimensions[0]);
+
+        for (int i = 1; i < dimensions.length; i++) {
+            float[] previous = outputs[i - 1];
+            float[] current = outputs[i];
+            TransferFunction function = functions[i - 1];
+
+            int size = dimensions[i - 1] + extra;
+
+            for (int j = 0, offset = weightsOffsets[i - 1]; j < dimensions[i]; j++, offset += size) {
+                float sum = 0;
+                for (int k = 0; k < size; k++) {
+                    sum += weights[offset + k] * previous[k];
+                }
+                current[j] = (float) function.calculate(sum);
+            }
+        }
+    }
+
+    /**
+     * @param multiplicity Output errors are scaled by it, which scales all gradients of the sample
+     */
+    private void calculateLayerErrors(float[] weights, float[] expected, float multiplicity) {
+
+        int last = dimensions.length - 1;
+
+        float[] errors = layerErrors[last];
+        TransferFunction function = functions[last - 1];
+
+        for (int j = 0; j < dimensions[last]; j++) {
+            errors[j] = (float) function.derivativeFromOutput(outputs[last][j]) * (expected[j] - outputs[last][j]) * multiplicity;
+        }
+
+        for (int i = last - 1; i > 0; i--) {
+            float[] front = layerErrors[i + 1];
+            float[] current = layerErrors[i];
+            float[] output = outputs[i];
+
+            function = functions[i - 1];
+
+            int size = dimensions[i] + extra;
+
+            for (int j = 0; j < dimensions[i]; j++) {
+                float sum = 0;
+                for (int k = 0, offset = weightsOffsets[i] + j; k < dimensions[i + 1]; k++, offset += size) {
+                    sum += front[k] * weights[offset];
+                }
+                current[j] = (float) function.derivativeFromOutput(output[j]) * sum;
+            }
+        }
+    }
+
+    private void calculateGradients(float[] gradients) {
+
+        for (int i = 1; i < dimensions.length; i++) {
+            float[] errors = layerErrors[i];
+            float[] previous = outputs[i - 1];
+
+            int size = dimensions[i - 1] + extra;
+
+            for (int j = 0, offset = weightsOffsets[i - 1]; j < dimensions[i]; j++, offset += size) {
+                float error = errors[j];
+                for (int k = 0; k < size; k++) {
+                    gradients[offset + k] += error * previous[k];
+                }
+            }
+        }
+    }
+
+    private double calculateError(float[] weights, float[][] in, float[][] out, int[] multiplicities, int count) {
+
+        float[] output = outputs[dimensions.length - 1];
+
+        float error = 0;
+
+        for (int i = 0; i < in.length; i++) {
+            forward(weights, in[i]);
+            float[] expected = out[i];
+            float sum = 0;
+            for (int j = 0; j < output.length; j++) {
+                sum += (output[j] - expected[j]) * (output[j] - expected[j]);
+            }
+            error += sum * multiplicities[i];
+        }
+
+        return error / (count << 1);
+    }
+
+    /**
+     * Called before training starts
+     *
+     * @param weightsCount Number of weights in network
+     */
+    protected abstract void init(int weightsCount);
+
+    /**
+     * Applies accumulated gradients to weights, gradients are cleared afterwards
+     *
+     * @param gradients Sum of gradients over whole data set
+     * @param weights Weights to update
+     */
+    protected abstract void updateWeights(float[] gradients, float[] weights);
+
+}
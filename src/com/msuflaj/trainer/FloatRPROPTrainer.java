@@ -0,0 +1,76 @@
+package com.msuflaj.trainer;
+
+import java.util.Random;
+
+public class FloatRPROPTrainer extends FloatPropagationTrainer {
+
+    private float deltaInitial;
+
+    private float deltaMin;
+
+    private float deltaMax;
+
+    private float kMinus;
+
+    private float kPlus;
+
+    private float[] previousGradients;
+
+    private float[] deltas;
+
+    public FloatRPROPTrainer(double kMinus, double kPlus, double deltaInitial, double deltaMin, double deltaMax, double lo, double hi, Random random) {
+        super(0, lo, hi, random);
+        this.kMinus = (float) kMinus;
+        this.kPlus = (float) kPlus;
+        this.deltaMin = (float) deltaMin;
+        this.deltaMax = (float) deltaMax;
+        this.deltaInitial = (float) deltaInitial;
+    }
+
+    @Override
+    protected void init(int weightsCount) {
+        previousGradients = new float[weightsCount];
+        deltas = new float[weightsCount];
+
+        for (int i = 0; i < weightsCount; i++) {
+            deltas[i] = deltaInitial;
+        }
+    }
+
+    @Override
+    protected void updateWeights(float[] gradients, float[] weights) {
+
+        for (int i = 0; i < weights.length; i++) {
+
+            float currentGradient = -gradients[i];
+
+            float gradientsMultiplied = currentGradient * previousGradients[i];
+
+            previousGradients[i] = currentGradient;
+
+            float currentDelta = deltas[i];
+
+            if (gradientsMultiplied > 0) {
+                currentDelta *= kPlus;
+            } else if (gradientsMultiplied < 0) {
+                currentDelta *= kMinus;
+            }
+
+            if (currentDelta > deltaMax) {
+                currentDelta = deltaMax;
+            } else if (currentDelta < deltaMin) {
+                currentDelta = deltaMin;
+            }
+
+            deltas[i] = currentDelta;
+
+            if (currentGradient > 0) {
+                weights[i] -= currentDelta;
+            } else if (currentGradient < 0) {
+                weights[i] += currentDelta;
+            }
+
+        }
+
+    }
+}
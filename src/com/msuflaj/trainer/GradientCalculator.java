@@ -0,0 +1,206 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.network.Kernels;
+import com.msuflaj.network.Network;
+import com.msuflaj.transfer.TransferFunction;
+
+import java.util.Arrays;
+
+/**
+ * Calculates error and its gradient over whole data set for weights given as one flat vector
+ * in {@link Network#getWeights()} ordering, the same way as {@link PropagationTrainer} in batch mode.
+ *
+ * Error is sum of squared differences divided by 2 * data set size, gradient is its derivative
+ * with respect to each weight (so descent direction is its negation).
+ *
+ * Used by {@link VectorTrainer} and {@link FlatPropagationTrainer}, which is why the pass itself
+ * ({@link #accumulate}) works with unscaled descent directions.
+ */
+class GradientCalculator {
+
+    private final int[] dimensions;
+
+    private final TransferFunction[] functions;
+
+    private final int extra;
+
+    private final int[] weightsOffsets;
+
+    private final int weightsCount;
+
+    private final double[][] outputs;
+
+    private final double[][] layerErrors;
+
+    /**
+     * Weights of each layer without bias weights, stored column-major
+     */
+    private final double[][] transposed;
+
+    public GradientCalculator(Network network) {
+        dimensions = network.getDimensions();
+        functions = network.getTransferFunctions();
+        extra = network.isBiased() ? 1 : 0;
+
+        weightsOffsets = new int[dimensions.length];
+        outputs = new double[dimensions.length][];
+        layerErrors = new double[dimensions.length][];
+        transposed = new double[dimensions.length - 1][];
+
+        for (int i = 0; i < dimensions.length; i++) {
+            outputs[i] = new double[dimensions[i] + ((i + 1) < dimensions.length ? extra : 0)];
+            layerErrors[i] = new double[dimensions[i]];
+            if (extra > 0 && (i + 1) < dimensions.length) {
+                outputs[i][dimensions[i]] = 1;
+            }
+            if (i > 0) {
+                weightsOffsets[i] = weightsOffsets[i - 1] + dimensions[i] * (dimensions[i - 1] + extra);
+                transposed[i - 1] = new double[dimensions[i] * dimensions[i - 1]];
+            }
+        }
+
+        weightsCount = weightsOffsets[dimensions.length - 1];
+    }
+
+    public int getWeightsCount() {
+        return weightsCount;
+    }
+
+    /**
+     * @param weights Weights to evaluate
+     * @param in Inputs
+     * @param out Expected outputs
+     * @param multiplicities Number of samples each row stands for
+     * @param count Sum of multiplicities
+     * @param gradients Filled with gradient of error
+     * @return Error
+     */
+    public double calculate(double[] weights, double[][] in, double[][] out, int[] multiplicities, int count, double[] gradients) {
+
+        Arrays.fill(gradients, 0);
+
+        double error = accumulate(weights, in, out, multiplicities, gradients);
+
+        // Accumulated values point downhill and are summed over data set
+        double scale = -1.0 / count;
+
+        for (int i = 0; i < gradients.length; i++) {
+            gradients[i] *= scale;
+        }
+
+        return error / (count << 1);
+    }
+
+    /**
+     * Adds descent direction of each sample, weighted by its multiplicity, to directions
+     *
+     * @return Sum of squared differences weighted by multiplicities
+     */
+    public double accumulate(double[] weights, double[][] in, double[][] out, int[] multiplicities, double[] directions) {
+
+        for (int i = 2; i < dimensions.length; i++) {
+            transpose(weights, i);
+        }
+
+        int last = dimensions.length - 1;
+
+        double error = 0;
+
+        for (int u = 0; u < in.length; u++) {
+            forward(weights, in[u]);
+
+            double[] expected = out[u];
+            double[] output = outputs[last];
+            double[] errors = layerErrors[last];
+            TransferFunction function = functions[last - 1];
+            double m = multiplicities[u];
+
+            for (int j = 0; j < dimensions[last]; j++) {
+                double difference = expected[j] - output[j];
+                errors[j] = function.derivativeFromOutput(output[j]) * difference * m;
+                error += m * difference * difference;
+            }
+
+            for (int i = last - 1; i > 0; i--) {
+                double[] front = layerErrors[i + 1];
+                double[] current = layerErrors[i];
+                double[] t = transposed[i];
+
+                output = outputs[i];
+                function = functions[i - 1];
+
+                int rows = dimensions[i + 1];
+
+                for (int j = 0, offset = 0; j < dimensions[i]; j++, offset += rows) {
+                    current[j] = function.derivativeFromOutput(output[j]) * Kernels.dot(front, 0, t, offset, rows);
+                }
+            }
+
+            for (int i = 1; i < dimensions.length; i++) {
+                double[] e = layerErrors[i];
+                double[] previous = outputs[i - 1];
+
+                int size = dimensions[i - 1] + extra;
+
+                for (int j = 0, offset = weightsOffsets[i - 1]; j < dimensions[i]; j++, offset += size) {
+                    Kernels.axpy(e[j], previous, 0, directions, offset, size);
+                }
+            }
+        }
+
+        return error;
+    }
+
+    /**
+     * @return Error without calculating gradient
+     */
+    public double calculateError(double[] weights, double[][] in, double[][] out, int[] multiplicities, int count) {
+
+        double[] output = outputs[dimensions.length - 1];
+
+        double error = 0;
+
+        for (int i = 0; i < in.length; i++) {
+            forward(weights, in[i]);
+            double[] expected = out[i];
+            for (int j = 0; j < output.length; j++) {
+                error += multiplicities[i] * (output[j] - expected[j]) * (output[j] - expected[j]);
+            }
+        }
+
+        return error / (count << 1);
+    }
+
+    private void transpose(double[] weights, int layer) {
+        double[] target = transposed[layer - 1];
+
+        int rows = dimensions[layer];
+        int columns = dimensions[layer - 1];
+        int size = columns + extra;
+        int offset = weightsOffsets[layer - 1];
+
+        for (int j = 0; j < rows; j++) {
+            for (int k = 0; k < columns; k++) {
+                target[k * rows + j] = weights[offset + j * size + k];
+            }
+        }
+    }
+
+    private void forward(double[] weights, double[] input) {
+
+        System.arraycopy(input, 0, outputs[0], 0, dimensions[0]);
+
+        for (int i = 1; i < dimensions.length; i++) {
+            double[] previous = outputs[i - 1];
+            double[] current = outputs[i];
+            TransferFunction function = functions[i - 1];
+
+            int size = dimensions[i - 1] + extra;
+
+            for (int j = 0, offset = weightsOffsets[i - 1]; j < dimensions[i]; j++, offset += size) {
+                current[j] = function.calculate(Kernels.dot(weights, offset, previous, 0, size));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.initialization.WeightsInitializer;
+
+/**
+ * Trainer whose initial weights can be chosen by {@link WeightsInitializer}
+ * instead of {@link com.msuflaj.initialization.UniformInitializer} over range given to its constructor.
+ */
+public interface InitializableTrainer extends Trainer {
+
+    /**
+     * @param initializer Initializer that is called with trainer's random, null for uniform range
+     */
+    public void setInitializer(WeightsInitializer initializer);
+
+}
@@ -0,0 +1,199 @@
+package com.msuflaj.trainer;
+
+import java.util.Random;
+
+/**
+ * Limited memory BFGS trainer.
+ *
+ * Inverse Hessian is approximated from last few weight and gradient changes, so memory is
+ * proportional to history size times weights count. Step is found by backtracking until
+ * sufficient decrease condition holds, every trial point is evaluated together with its gradient
+ * so accepted trial needs no additional pass. Usually first trial is accepted.
+ */
+public class LBFGSTrainer extends VectorTrainer {
+
+    private static final double SUFFICIENT_DECREASE = 1e-4;
+
+    private static final int MAX_BACKTRACKS = 20;
+
+    private final int history;
+
+    private double[][] weightChanges;
+
+    private double[][] gradientChanges;
+
+    private double[] rho;
+
+    private double[] alpha;
+
+    /**
+     * Number of stored pairs
+     */
+    private int count;
+
+    /**
+     * Index of newest pair
+     */
+    private int head;
+
+    private double[] gradients;
+
+    private double[] direction;
+
+    private double[] trial;
+
+    private double[] trialGradients;
+
+    /**
+     * Candidate pair, swapped into history only when accepted
+     */
+    private double[] weightChange;
+
+    private double[] gradientChange;
+
+    public LBFGSTrainer(int history, double lo, double hi, Random random) {
+        super(lo, hi, random);
+
+        if (history < 1) {
+            throw new IllegalArgumentException("History must be positive");
+        }
+
+        this.history = history;
+    }
+
+    @Override
+    protected void init(double[] weights, double[] gradients) {
+        int n = weights.length;
+
+        weightChanges = new double[history][n];
+        gradientChanges = new double[history][n];
+        rho = new double[history];
+        alpha = new double[history];
+
+        this.gradients = gradients.clone();
+        direction = new double[n];
+        trial = new double[n];
+        trialGradients = new double[n];
+        weightChange = new double[n];
+        gradientChange = new double[n];
+
+        count = 0;
+        head = -1;
+    }
+
+    @Override
+    protected double iterate(double[] weights, double error) {
+        int n = weights.length;
+
+        calculateDirection();
+
+        double slope = dot(gradients, direction);
+
+        if (slope >= 0) {
+            // Approximation lost positive definiteness, fall back to steepest descent
+            count = 0;
+            calculateDirection();
+            slope = dot(gradients, direction);
+        }
+
+        if (0 == slope) {
+            return error;
+        }
+
+        // Without history direction is not scaled
+        double step = count > 0 ? 1 : 1 / Math.sqrt(-slope);
+
+        for (int k = 0; k < MAX_BACKTRACKS; k++) {
+
+            for (int i = 0; i < n; i++) {
+                trial[i] = weights[i] + step * direction[i];
+            }
+
+            double trialError = calculate(trial, trialGradients);
+
+            if (trialError <= error + SUFFICIENT_DECREASE * step * slope) {
+
+                double product = 0;
+
+                for (int i = 0; i < n; i++) {
+                    weightChange[i] = trial[i] - weights[i];
+                    gradientChange[i] = trialGradients[i] - gradients[i];
+                    product += weightChange[i] * gradientChange[i];
+                }
+
+                // Pair is only kept when curvature is positive, replaced oldest pair becomes scratch
+                if (product > 0) {
+                    int next = (head + 1) % history;
+
+                    double[] swap = weightChanges[next];
+                    weightChanges[next] = weightChange;
+                    weightChange = swap;
+
+                    swap = gradientChanges[next];
+                    gradientChanges[next] = gradientChange;
+                    gradientChange = swap;
+
+                    rho[next] = 1 / product;
+                    head = next;
+                    count = Math.min(count + 1, history);
+                }
+
+                System.arraycopy(trial, 0, weights, 0, n);
+
+                double[] swap = gradients;
+                gradients = trialGradients;
+                trialGradients = swap;
+
+                return trialError;
+            }
+
+            // Minimum of quadratic through error, slope and trial error, kept in [0.1, 0.5] of step
+            double next = -slope * step * step / (2 * (trialError - error - slope * step));
+            step = Math.max(0.1 * step, Math.min(0.5 * step, next));
+        }
+
+        count = 0;
+
+        return error;
+    }
+
+    /**
+     * Two loop recursion, direction = -H * gradients
+     */
+    private void calculateDirection() {
+        int n = direction.length;
+
+        for (int i = 0; i < n; i++) {
+            direction[i] = -gradients[i];
+        }
+
+        if (0 == count) {
+            return ;
+        }
+
+        for (int k = 0, j = head; k < count; k++, j = (j - 1 + history) % history) {
+            alpha[j] = rho[j] * dot(weightChanges[j], direction);
+            double[] y = gradientChanges[j];
+            for (int i = 0; i < n; i++) {
+                direction[i] -= alpha[j] * y[i];
+            }
+        }
+
+        double[] s = weightChanges[head];
+        double[] y = gradientChanges[head];
+        double gamma = dot(s, y) / dot(y, y);
+
+        for (int i = 0; i < n; i++) {
+            direction[i] *= gamma;
+        }
+
+        for (int k = 0, j = (head - count + 1 + history) % history; k < count; k++, j = (j + 1) % history) {
+            double beta = rho[j] * dot(gradientChanges[j], direction);
+            double[] w = weightChanges[j];
+            for (int i = 0; i < n; i++) {
+                direction[i] += (alpha[j] - beta) * w[i];
+            }
+        }
+    }
+
+}
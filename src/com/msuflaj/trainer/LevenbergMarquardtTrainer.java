@@ -0,0 +1,521 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.network.Neuron;
+import com.msuflaj.statistics.Statistics;
+import com.msuflaj.trainer.PropagationTrainer.PropagationCompatibleNeuron;
+import com.msuflaj.trainer.PropagationTrainer.Trainable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Levenberg-Marquardt trainer for small networks.
+ *
+ * Each iteration builds J^T J and J^T e, where J is Jacobian of network outputs with respect to
+ * weights, and solves (J^T J + mu I) dw = J^T e with Cholesky decomposition. Damping factor mu is
+ * decreased after a step that lowers error and increased until such step is found.
+ *
+ * Memory grows with square of weights count, so networks are limited to {@link #MAX_WEIGHTS}
+ * and number of threads is lowered when their buffers would not fit in half of heap.
+ */
+public class LevenbergMarquardtTrainer implements InitializableTrainer, ValidatedTrainer {
+
+    public static final int MAX_WEIGHTS = 4096;
+
+    private final double lo;
+
+    private final double hi;
+
+    private final Random random;
+
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    private final double muInitial;
+
+    private final double muIncrease;
+
+    private final double muDecrease;
+
+    private final double muMax;
+
+    private int parallelism = 1;
+
+    /**
+     * Evaluates part of data set in its own buffers, optionally accumulating upper triangle
+     * of J^T J and J^T e. Weights are only read from neurons.
+     * Returns sum of squared errors of its part.
+     */
+    private static class JacobianWorker implements Callable<Double> {
+
+        private final PropagationCompatibleNeuron[][] layers;
+
+        private final int[] weightsOffsets;
+
+        private final int weightsCount;
+
+        private final double[][] in;
+
+        private final double[][] out;
+
+        private final int[] multiplicities;
+
+        private final int from;
+
+        private final int to;
+
+        private final double[][] activations;
+
+        private final double[][] deltas;
+
+        private final double[] row;
+
+        private final double[] jacobianProduct;
+
+        private final double[] errorProduct;
+
+        private boolean isJacobian;
+
+        /**
+         * @param layers Neurons of hidden and output layers without biased neurons
+         * @param weightsOffsets Offset of first weight of each layer in flat weights
+         */
+        public JacobianWorker(PropagationCompatibleNeuron[][] layers, int[] weightsOffsets, int weightsCount, boolean isBiased, int inputs,
+                              double[][] in, double[][] out, int[] multiplicities, int from, int to) {
+            this.layers = layers;
+            this.weightsOffsets = weightsOffsets;
+            this.weightsCount = weightsCount;
+            this.in = in;
+            this.out = out;
+            this.multiplicities = multiplicities;
+            this.from = from;
+            this.to = to;
+
+            int extra = isBiased ? 1 : 0;
+
+            activations = new double[layers.length + 1][];
+            deltas = new double[layers.length][];
+            activations[0] = new double[inputs + extra];
+            Arrays.fill(activations[0], 1);
+
+            for (int i = 0; i < layers.length; i++) {
+                activations[i + 1] = new double[layers[i].length + (i + 1 < layers.length ? extra : 0)];
+                Arrays.fill(activations[i + 1], 1);
+                deltas[i] = new double[layers[i].length];
+            }
+
+            row = new double[weightsCount];
+            jacobianProduct = new double[weightsCount * weightsCount];
+            errorProduct = new double[weightsCount];
+        }
+
+        @Override
+        public Double call() {
+
+            if (isJacobian) {
+                Arrays.fill(jacobianProduct, 0);
+                Arrays.fill(errorProduct, 0);
+            }
+
+            int l = layers.length;
+
+            double error = 0;
+
+            for (int u = from; u < to; u++) {
+
+                System.arraycopy(in[u], 0, activations[0], 0, in[u].length);
+
+                for (int i = 0; i < l; i++) {
+                    double[] inputs = activations[i];
+                    double[] outputs = activations[i + 1];
+                    for (int j = 0; j < layers[i].length; j++) {
+                        double[] weights = layers[i][j].getWeights();
+                        double sum = 0;
+                        for (int k = 0; k < weights.length; k++) {
+                            sum += weights[k] * inputs[k];
+                        }
+                        outputs[j] = layers[i][j].getTransferFunction().calculate(sum);
+                    }
+                }
+
+                double[] expected = out[u];
+                double[] outputs = activations[l];
+                double m = multiplicities[u];
+
+                for (int o = 0; o < expected.length; o++) {
+                    double e = expected[o] - outputs[o];
+                    error += m * e * e;
+
+                    if (isJacobian) {
+                        calculateRow(o);
+                        accumulate(e, m);
+                    }
+                }
+            }
+
+            return error;
+        }
+
+        /**
+         * Calculates derivatives of output o with respect to all weights
+         */
+        private void calculateRow(int o) {
+            int l = layers.length;
+
+            Arrays.fill(deltas[l - 1], 0);
+            deltas[l - 1][o] = layers[l - 1][o].getTransferFunction().derivativeFromOutput(activations[l][o]);
+
+            for (int i = l - 2; i >= 0; i--) {
+                PropagationCompatibleNeuron[] front = layers[i + 1];
+                for (int j = 0; j < layers[i].length; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < front.length; k++) {
+                        sum += deltas[i + 1][k] * front[k].getWeights()[j];
+                    }
+                    deltas[i][j] = layers[i][j].getTransferFunction().derivativeFromOutput(activations[i + 1][j]) * sum;
+                }
+            }
+
+            for (int i = 0; i < l; i++) {
+                double[] inputs = activations[i];
+                for (int j = 0, offset = weightsOffsets[i]; j < layers[i].length; j++, offset += inputs.length) {
+                    double delta = deltas[i][j];
+                    for (int k = 0; k < inputs.length; k++) {
+                        row[offset + k] = delta * inputs[k];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds row weighted by multiplicity of its sample, giving J^T W J and J^T W e
+         */
+        private void accumulate(double e, double m) {
+            int n = weightsCount;
+
+            for (int i = 0; i < n; i++) {
+                if (0 == row[i]) {
+                    continue;
+                }
+                double value = row[i] * m;
+                errorProduct[i] += value * e;
+                for (int j = i, offset = i * n + i; j < n; j++, offset++) {
+                    jacobianProduct[offset] += value * row[j];
+                }
+            }
+        }
+
+    }
+
+    /**
+     * @param muInitial Initial damping factor
+     * @param muIncrease Factor by which mu is multiplied when step increases error
+     * @param muDecrease Factor by which mu is multiplied when step decreases error
+     * @param muMax Training stops when mu gets over this value
+     */
+    public LevenbergMarquardtTrainer(double muInitial, double muIncrease, double muDecrease, double muMax, double lo, double hi, Random random) {
+        if (muInitial <= 0 || muInitial > muMax) {
+            throw new IllegalArgumentException("Initial mu must be positive and lower than maximal mu");
+        }
+
+        if (muIncrease <= 1 || muDecrease <= 0 || muDecrease >= 1) {
+            throw new IllegalArgumentException("Mu increase must be greater than 1 and mu decrease in (0, 1)");
+        }
+
+        if (lo >= hi) {
+            throw new IllegalArgumentException("Down boundary must be less than upper boundary");
+        }
+
+        this.muInitial = muInitial;
+        this.muIncrease = muIncrease;
+        this.muDecrease = muDecrease;
+        this.muMax = muMax;
+        this.lo = lo;
+        this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
+        this.random = random;
+    }
+
+    /**
+     * @param parallelism Number of threads that calculate Jacobian, data set is split into equal parts
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
+
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public double train(Network net, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+
+        if (!(net instanceof Trainable)) {
+            throw new UnexpectedNetworkException("Expected network must implement " + Trainable.class);
+        }
+
+        Trainable network = (Trainable) net;
+
+        int n = network.getWeightsCount();
+
+        if (n > MAX_WEIGHTS) {
+            throw new UnexpectedNetworkException("Levenberg-Marquardt supports at most " + MAX_WEIGHTS + " weights");
+        }
+
+        double[] weights = new double[n];
+
+        initializer.initialize(network.getDimensions(), network.isBiased(), random, weights);
+
+        network.setWeights(weights);
+
+        List<Neuron[]> listOfNeurons = network.getNeurons();
+        PropagationCompatibleNeuron[][] layers = new PropagationCompatibleNeuron[listOfNeurons.size() - 1][];
+        int[] weightsOffsets = new int[layers.length];
+
+        int[] dimensions = network.getDimensions();
+        int extra = network.isBiased() ? 1 : 0;
+
+        for (int i = 0, offset = 0; i < layers.length; i++) {
+            layers[i] = new PropagationCompatibleNeuron[dimensions[i + 1]];
+            for (int j = 0; j < layers[i].length; j++) {
+                layers[i][j] = (PropagationCompatibleNeuron) listOfNeurons.get(i + 1)[j];
+            }
+            weightsOffsets[i] = offset;
+            offset += dimensions[i + 1] * (dimensions[i] + extra);
+        }
+
+        double[][] in = dataSet.first;
+        double[][] out = dataSet.second;
+
+        int[] multiplicities = dataSet.getMultiplicities();
+
+        // Each worker accumulates its own J^T J, besides them only damped copy is kept, all have to fit in half of heap
+        long matrixSize = 8L * n * n;
+        long budget = Runtime.getRuntime().maxMemory() / 2 / matrixSize - 1;
+
+        int workersCount = (int) Math.max(1, Math.min(Math.min(parallelism, in.length), budget));
+
+        List<JacobianWorker> workers = new ArrayList<>(workersCount);
+
+        for (int w = 0; w < workersCount; w++) {
+            workers.add(new JacobianWorker(layers, weightsOffsets, n, extra > 0, dimensions[0], in, out, multiplicities,
+                    (int) ((long) in.length * w / workersCount), (int) ((long) in.length * (w + 1) / workersCount)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(workersCount);
+
+        try {
+            return train(network, layers, weights, workers, pool, dataSet.getSampleCount(), stopCondition, statistics);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private double train(Network network, PropagationCompatibleNeuron[][] layers, double[] weights, List<JacobianWorker> workers, ForkJoinPool pool, int count,
+                         StopCondition stopCondition, Statistics statistics) throws NetworkException {
+
+        int n = weights.length;
+
+        // Products of all workers are summed into the first one
+        double[] jacobianProduct = workers.get(0).jacobianProduct;
+        double[] errorProduct = workers.get(0).errorProduct;
+        double[] matrix = new double[n * n];
+        double[] step = new double[n];
+        double[] trial = new double[n];
+
+        double mu = muInitial;
+
+        double error = evaluate(workers, pool, false);
+
+        // Error only decreases, so without validation last weights are the best
+        double[] bestWeights = null;
+        double bestError = error;
+
+        statistics.signalStart();
+        statistics.setError(error / (count << 1));
+
+        if (null != validation) {
+            bestWeights = weights.clone();
+            validation.reset();
+            validation.validate(network, statistics);
+        }
+
+        for (int i = 0; stopCondition.isConditionMet(i, error / (count << 1)) && mu <= muMax; i++) {
+
+            evaluate(workers, pool, true);
+
+            while (mu <= muMax) {
+
+                for (int r = 0; r < n; r++) {
+                    for (int c = r; c < n; c++) {
+                        matrix[r * n + c] = jacobianProduct[r * n + c];
+                    }
+                    matrix[r * n + r] += mu;
+                }
+
+                if (!solve(matrix, errorProduct, step, n)) {
+                    mu *= muIncrease;
+                    continue;
+                }
+
+                for (int k = 0; k < n; k++) {
+                    trial[k] = weights[k] + step[k];
+                }
+
+                setWeights(layers, trial);
+
+                double trialError = evaluate(workers, pool, false);
+
+                if (trialError < error) {
+                    System.arraycopy(trial, 0, weights, 0, n);
+                    error = trialError;
+                    mu = Math.max(mu * muDecrease, Double.MIN_NORMAL);
+                    break;
+                }
+
+                setWeights(layers, weights);
+                mu *= muIncrease;
+            }
+
+            statistics.incrementIteration();
+            statistics.setError(error / (count << 1));
+
+            if (null != validation && validation.isDue(i + 1) && validation.validate(network, statistics)) {
+                System.arraycopy(weights, 0, bestWeights, 0, n);
+                bestError = error;
+            }
+        }
+
+        statistics.signalFinish();
+
+        if (null == validation) {
+            setWeights(layers, weights);
+            return error / (count << 1);
+        }
+
+        setWeights(layers, bestWeights);
+
+        return bestError / (count << 1);
+    }
+
+    /**
+     * @return Sum of squared errors, J^T J and J^T e are stored in first worker when isJacobian is set
+     */
+    private static double evaluate(List<JacobianWorker> workers, ForkJoinPool pool, boolean isJacobian) throws NetworkException {
+        for (JacobianWorker worker : workers) {
+            worker.isJacobian = isJacobian;
+        }
+
+        double error = 0;
+
+        for (Future<Double> future : pool.invokeAll(workers)) {
+            try {
+                error += future.get();
+            } catch (ExecutionException e) {
+                throw new NetworkException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NetworkException(e);
+            }
+        }
+
+        if (isJacobian) {
+            double[] jacobianProduct = workers.get(0).jacobianProduct;
+            double[] errorProduct = workers.get(0).errorProduct;
+
+            for (int w = 1; w < workers.size(); w++) {
+                double[] j = workers.get(w).jacobianProduct;
+                double[] e = workers.get(w).errorProduct;
+                for (int i = 0; i < j.length; i++) {
+                    jacobianProduct[i] += j[i];
+                }
+                for (int i = 0; i < e.length; i++) {
+                    errorProduct[i] += e[i];
+                }
+            }
+        }
+
+        return error;
+    }
+
+    private static void setWeights(PropagationCompatibleNeuron[][] layers, double[] weights) {
+        int offset = 0;
+
+        for (PropagationCompatibleNeuron[] layer : layers) {
+            for (PropagationCompatibleNeuron neuron : layer) {
+                double[] w = neuron.getWeights();
+                System.arraycopy(weights, offset, w, 0, w.length);
+                offset += w.length;
+            }
+        }
+    }
+
+    /**
+     * Solves matrix * x = b with Cholesky decomposition, only upper triangle of matrix is read
+     * and it is overwritten with decomposition.
+     *
+     * @return False if matrix is not positive definite
+     */
+    private static boolean solve(double[] matrix, double[] b, double[] x, int n) {
+
+        // matrix = U^T U, U is stored in upper triangle
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double sum = matrix[i * n + j];
+                for (int k = 0; k < i; k++) {
+                    sum -= matrix[k * n + i] * matrix[k * n + j];
+                }
+                if (i == j) {
+                    if (sum <= 0) {
+                        return false;
+                    }
+                    matrix[i * n + i] = Math.sqrt(sum);
+                } else {
+                    matrix[i * n + j] = sum / matrix[i * n + i];
+                }
+            }
+        }
+
+        // U^T y = b
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= matrix[k * n + i] * x[k];
+            }
+            x[i] = sum / matrix[i * n + i];
+        }
+
+        // U x = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= matrix[i * n + k] * x[k];
+            }
+            x[i] = sum / matrix[i * n + i];
+        }
+
+        return true;
+    }
+
+}
@@ -1,5 +1,9 @@
 package com.msuflaj.trainer;
 
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
 import com.msuflaj.util.ResourceLoader;
 import org.jocl.*;
 
@@ -9,11 +13,28 @@ import static org.jocl.CL.*;
 
 public class OpenCLBackPropagationTrainer extends OpenCLPropagationTrainer {
 
+    private int optimizer = BackPropagationTrainer.GRADIENT;
+
+    private double momentum = 0.9;
+
+    private double beta1 = 0.9;
+
+    private double beta2 = 0.999;
+
+    private double epsilon = 1e-8;
+
+    private int weightsSize;
 
     private cl_kernel updateWeightsKernel;
 
+    private cl_mem velocitiesMemoryObject;
+
+    private cl_mem momentsMemoryObject;
+
+    private cl_mem stepsMemoryObject;
+
     public OpenCLBackPropagationTrainer(double ni, double lo, double hi, Random random, long deviceId) {
-        super(ni, lo, hi, random);
+        super(ni, lo, hi, random, deviceId);
     }
 
     @Override
@@ -25,9 +46,52 @@ public class OpenCLBackPropagationTrainer extends OpenCLPropagationTrainer {
         this(ni, lo, hi, random, CL_DEVICE_TYPE_GPU);
     }
 
+    /**
+     * @param optimizer One of {@link BackPropagationTrainer#GRADIENT}, {@link BackPropagationTrainer#MOMENTUM},
+     *                  {@link BackPropagationTrainer#NESTEROV} or {@link BackPropagationTrainer#ADAM}
+     */
+    public void setOptimizer(int optimizer) {
+        if (optimizer < BackPropagationTrainer.GRADIENT || optimizer > BackPropagationTrainer.ADAM) {
+            throw new IllegalArgumentException("Unknown optimizer " + optimizer);
+        }
+        this.optimizer = optimizer;
+    }
+
+    /**
+     * @param momentum Fraction of previous step kept by momentum optimizers
+     */
+    public void setMomentum(double momentum) {
+        if (momentum < 0 || momentum >= 1) {
+            throw new IllegalArgumentException("Momentum must be in [0, 1)");
+        }
+        this.momentum = momentum;
+    }
+
+    /**
+     * @param beta1 Decay of first moment
+     * @param beta2 Decay of second moment
+     * @param epsilon Added to square root of second moment
+     */
+    public void setAdam(double beta1, double beta2, double epsilon) {
+        if (beta1 < 0 || beta1 >= 1 || beta2 < 0 || beta2 >= 1) {
+            throw new IllegalArgumentException("Betas must be in [0, 1)");
+        }
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("Epsilon must be positive");
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
 
     @Override
-    protected cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer) {
+    public double train(Network net, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+        weightsSize = net.getWeightsCount();
+        return super.train(net, dataSet, stopCondition, statistics);
+    }
+
+    @Override
+    protected cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer, Pointer totalErrorMemoryObjectPointer) {
         updateWeightsKernel = clCreateKernel(program, "updateWeights", null);
 
         clSetKernelArg(updateWeightsKernel, 0,
@@ -39,6 +103,62 @@ public class OpenCLBackPropagationTrainer extends OpenCLPropagationTrainer {
         clSetKernelArg(updateWeightsKernel, 2,
                 Sizeof.cl_mem, weightsMemoryObjectPointer);
 
+        clSetKernelArg(updateWeightsKernel, 3,
+                Sizeof.cl_int, Pointer.to(new int[] {
+                        optimizer
+                }));
+
+        clSetKernelArg(updateWeightsKernel, 4,
+                Sizeof.cl_float, Pointer.to(new float[] {
+                        (float) momentum
+                }));
+
+        clSetKernelArg(updateWeightsKernel, 5,
+                Sizeof.cl_float, Pointer.to(new float[] {
+                        (float) beta1
+                }));
+
+        clSetKernelArg(updateWeightsKernel, 6,
+                Sizeof.cl_float, Pointer.to(new float[] {
+                        (float) beta2
+                }));
+
+        clSetKernelArg(updateWeightsKernel, 7,
+                Sizeof.cl_float, Pointer.to(new float[] {
+                        (float) epsilon
+                }));
+
+        // Unused state buffers are kept at one element
+        int velocitiesSize = BackPropagationTrainer.GRADIENT == optimizer ? 1 : weightsSize;
+        int momentsSize = BackPropagationTrainer.ADAM == optimizer ? weightsSize : 1;
+
+        velocitiesMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * velocitiesSize, Pointer.to(new float[velocitiesSize]), null
+        );
+
+        momentsMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * momentsSize, Pointer.to(new float[momentsSize]), null
+        );
+
+        stepsMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * momentsSize, Pointer.to(new float[momentsSize]), null
+        );
+
+        clSetKernelArg(updateWeightsKernel, 8,
+                Sizeof.cl_mem, Pointer.to(velocitiesMemoryObject));
+
+        clSetKernelArg(updateWeightsKernel, 9,
+                Sizeof.cl_mem, Pointer.to(momentsMemoryObject));
+
+        clSetKernelArg(updateWeightsKernel, 10,
+                Sizeof.cl_mem, Pointer.to(stepsMemoryObject));
+
         return updateWeightsKernel;
     }
 
@@ -47,6 +167,11 @@ public class OpenCLBackPropagationTrainer extends OpenCLPropagationTrainer {
         if (null == updateWeightsKernel) {
             return ;
         }
+
+        clReleaseMemObject(velocitiesMemoryObject);
+        clReleaseMemObject(momentsMemoryObject);
+        clReleaseMemObject(stepsMemoryObject);
+
         clReleaseKernel(updateWeightsKernel);
     }
 
@@ -1,7 +1,8 @@
 package com.msuflaj.trainer;
 
 import com.msuflaj.dataset.DataSet;
-import com.msuflaj.network.FullyConnectedForwardNetwork;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
 import com.msuflaj.network.Network;
 import com.msuflaj.network.NetworkException;
 import com.msuflaj.statistics.Statistics;
@@ -18,7 +19,7 @@ import java.util.Random;
 
 import static org.jocl.CL.*;
 
-public abstract class OpenCLPropagationTrainer implements Trainer {
+public abstract class OpenCLPropagationTrainer implements InitializableTrainer, ValidatedTrainer {
 
     private final double lo;
 
@@ -26,10 +27,20 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
 
     private final Random random;
 
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    private Sampling sampling;
+
     private final long deviceId;
 
+    private int deviceIndex = 0;
+
     private double ni;
 
+    private int batchSize = 0;
+
     public OpenCLPropagationTrainer(double ni, double lo, double hi, Random random) {
         this(ni, lo, hi, random, CL_DEVICE_TYPE_GPU);
     }
@@ -46,18 +57,28 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         this.ni = ni;
         this.lo = lo;
         this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
         this.random = random;
         this.deviceId = deviceId;
     }
 
     @Override
-    public double train(Network net, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
 
-        if (!(net instanceof FullyConnectedForwardNetwork)) {
-            throw new UnexpectedNetworkException("Expected network must be instance of " + FullyConnectedForwardNetwork.class);
-        }
+    /**
+     * Weights and error are read back from device only in iterations when validation is due
+     */
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
 
-        FullyConnectedForwardNetwork network = (FullyConnectedForwardNetwork) net;
+    @Override
+    public double train(Network net, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+
+        Network network = net;
 
         int[] dimensions = network.getDimensions();
         TransferFunction[] functions = network.getTransferFunctions();
@@ -90,14 +111,12 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         int dataSetSize = dataSet.first.length;
 
         float[] outputs = new float[neuronsOffset * dataSetSize];
-        float[] rawOutputs = new float[neuronsOffset * dataSetSize];
 
         if (isBiased) {
             for (int i = 0; i < dataSetSize; i++) {
                 int o = neuronsOffset * i;
                 for (int j = 0; j < dimensions.length - 1; j++) {
                     outputs[o + neuronOffsets[j] + dimensions[j]] = 1;
-                    rawOutputs[o + neuronOffsets[j] + dimensions[j]] = 1;
                 }
             }
         }
@@ -123,10 +142,11 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
 
         float[] weights = new float[weightsOffset];
 
-        double d = hi - lo;
+        double[] initial = new double[weights.length];
+        initializer.initialize(dimensions, isBiased, random, initial);
 
         for (int i = 0; i < weights.length; i++) {
-            weights[i] = (float) (random.nextDouble() * d + lo);
+            weights[i] = (float) initial[i];
         }
 
         int[] transferFunctionsIds = new int[functions.length];
@@ -156,7 +176,13 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         float[] errors = new float[dataSetSize];
         float[] layerErrors = new float[neuronsOffset * dataSetSize];
         float[] gradients = new float[weightsOffset * dataSetSize];
-        float[] totalError = new float[] {1};
+        float[] totalError = new float[] {Float.MAX_VALUE, Float.MAX_VALUE};
+
+        int[] indices = new int[dataSetSize];
+
+        for (int i = 0; i < dataSetSize; i++) {
+            indices[i] = i;
+        }
 
         Pointer isBiasedPointer = Pointer.to(new int[] {
             isBiased ? 1 : 0
@@ -179,6 +205,16 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         Pointer dataSetSizePointer = Pointer.to(new int[] {
             dataSetSize
         });
+
+        Pointer sampleCountPointer = Pointer.to(new int[] {
+            dataSet.getSampleCount()
+        });
+
+        float[] multiplicities = new float[dataSetSize];
+
+        for (int i = 0; i < dataSetSize; i++) {
+            multiplicities[i] = null == dataSet.multiplicities ? 1 : dataSet.multiplicities[i];
+        }
         Pointer datSetsPointer = Pointer.to(dataSets);
         Pointer neuronOffsetsPointer = Pointer.to(neuronOffsets);
         Pointer weightsOffsetsPointer = Pointer.to(weightsOffsets);
@@ -187,16 +223,15 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         Pointer transferFunctionsParamsPointer = Pointer.to(transferFunctionParams);
         Pointer transferFunctionsParamsOffsetsPointer = Pointer.to(transferFunctionParamsOffsets);
         Pointer weightsPointer = Pointer.to(weights);
-        Pointer rawOutputsPointer = Pointer.to(rawOutputs);
         Pointer outputsPointer = Pointer.to(outputs);
         Pointer errorsPointer = Pointer.to(errors);
         Pointer layerErrorsPointer = Pointer.to(layerErrors);
         Pointer gradientsPointer = Pointer.to(gradients);
         Pointer totalErrorPointer = Pointer.to(totalError);
+        Pointer indicesPointer = Pointer.to(indices);
 
         final int platformIndex = 0;
         final long deviceType = deviceId;
-        final int deviceIndex = 0;
 
         CL.setExceptionsEnabled(true);
 
@@ -215,18 +250,16 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         clGetDeviceIDs(platform, deviceType, 0, null, numDevicesArray);
         int numDevices = numDevicesArray[0];
 
+        if (deviceIndex >= numDevices) {
+            throw new NetworkException("Device " + deviceIndex + " not found, " + numDevices + " available");
+        }
+
         cl_device_id devices[] = new cl_device_id[numDevices];
         clGetDeviceIDs(platform, deviceType, numDevices, devices, null);
         cl_device_id device = devices[deviceIndex];
 
         int maxWorkGroupSize = (int) getMaxWorkGroupSize(device);
 
-        int lastIteration = dataSetSize % maxWorkGroupSize;
-        int workGroupSize = dataSetSize - lastIteration;
-
-        int weightsLastIteration = weightsOffset % maxWorkGroupSize;
-        int weightsWorkGroupSize = weightsOffset - weightsLastIteration;
-
         cl_context context = clCreateContext(
                 contextProperties, 1, new cl_device_id[]{device},
                 null, null, null);
@@ -283,12 +316,6 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
                 Sizeof.cl_float * weights.length, weightsPointer, null
         );
 
-        cl_mem rawOutputsMemoryObject = clCreateBuffer(
-                context,
-                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
-                Sizeof.cl_float * rawOutputs.length, rawOutputsPointer, null
-        );
-
         cl_mem outputsMemoryObject = clCreateBuffer(
                 context,
                 CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
@@ -315,8 +342,20 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
 
         cl_mem totalErrorMemoryObject = clCreateBuffer(
                 context,
-                CL_MEM_WRITE_ONLY | CL_MEM_COPY_HOST_PTR,
-                Sizeof.cl_float, totalErrorPointer, null
+                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * totalError.length, totalErrorPointer, null
+        );
+
+        cl_mem indicesMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_ONLY | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_int * indices.length, indicesPointer, null
+        );
+
+        cl_mem multiplicitiesMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_ONLY | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * multiplicities.length, Pointer.to(multiplicities), null
         );
 
         Pointer neuronOffsetsMemoryObjectPointer = Pointer.to(neuronOffsetsMemoryObject);
@@ -327,12 +366,13 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         Pointer transferFunctionsParamsOffsetsMemoryObjectPointer = Pointer.to(transferFunctionsParamsOffsetsMemoryObject);
         Pointer dataSetsMemoryObjectPointer = Pointer.to(dataSetsMemoryObject);
         Pointer weightsMemoryObjectPointer = Pointer.to(weightsMemoryObject);
-        Pointer rawOutputsMemoryObjectPointer = Pointer.to(rawOutputsMemoryObject);
         Pointer outputsMemoryObjectPointer = Pointer.to(outputsMemoryObject);
         Pointer errorsMemoryObjectPointer = Pointer.to(errorsMemoryObject);
         Pointer layerErrorsMemObjectPointer = Pointer.to(layerErrorsMemObject);
         Pointer gradientsMemObjectPointer = Pointer.to(gradientsMemoryObject);
         Pointer totalErrorMemObjectPointer = Pointer.to(totalErrorMemoryObject);
+        Pointer indicesMemObjectPointer = Pointer.to(indicesMemoryObject);
+        Pointer multiplicitiesMemObjectPointer = Pointer.to(multiplicitiesMemoryObject);
 
         ResourceLoader loader = new ResourceLoader();
         String programSource = loader.load("/res/cl/trainer.cl");
@@ -384,13 +424,16 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
                 Sizeof.cl_mem, weightsMemoryObjectPointer);
 
         clSetKernelArg(evaluateKernel, 12,
-                Sizeof.cl_mem, rawOutputsMemoryObjectPointer);
+                Sizeof.cl_mem, outputsMemoryObjectPointer);
 
         clSetKernelArg(evaluateKernel, 13,
-                Sizeof.cl_mem, outputsMemoryObjectPointer);
+                Sizeof.cl_mem, errorsMemoryObjectPointer);
 
         clSetKernelArg(evaluateKernel, 14,
-                Sizeof.cl_mem, errorsMemoryObjectPointer);
+                Sizeof.cl_mem, indicesMemObjectPointer);
+
+        clSetKernelArg(evaluateKernel, 15,
+                Sizeof.cl_mem, multiplicitiesMemObjectPointer);
 
 
 
@@ -430,13 +473,16 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
                 Sizeof.cl_mem, weightsMemoryObjectPointer);
 
         clSetKernelArg(calculateLayerErrorKernel, 11,
-                Sizeof.cl_mem, rawOutputsMemoryObjectPointer);
+                Sizeof.cl_mem, outputsMemoryObjectPointer);
 
         clSetKernelArg(calculateLayerErrorKernel, 12,
-                Sizeof.cl_mem, outputsMemoryObjectPointer);
+                Sizeof.cl_mem, layerErrorsMemObjectPointer);
 
         clSetKernelArg(calculateLayerErrorKernel, 13,
-                Sizeof.cl_mem, layerErrorsMemObjectPointer);
+                Sizeof.cl_mem, indicesMemObjectPointer);
+
+        clSetKernelArg(calculateLayerErrorKernel, 14,
+                Sizeof.cl_mem, multiplicitiesMemObjectPointer);
 
 
         cl_kernel calculateGradientsKernel = clCreateKernel(program, "calculateGradients", null);
@@ -471,6 +517,9 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         clSetKernelArg(calculateGradientsKernel, 9,
                 Sizeof.cl_mem, gradientsMemObjectPointer);
 
+        clSetKernelArg(calculateGradientsKernel, 10,
+                Sizeof.cl_mem, indicesMemObjectPointer);
+
 
         cl_kernel sumGradientsKernel = clCreateKernel(program, "sumGradients", null);
 
@@ -478,12 +527,17 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
                 Sizeof.cl_int, numberOfWeightsPointer);
 
         clSetKernelArg(sumGradientsKernel, 1,
-                Sizeof.cl_int, dataSetSizePointer);
+                Sizeof.cl_int, Pointer.to(new int[] {
+                    0
+                }));
 
         clSetKernelArg(sumGradientsKernel, 2,
+                Sizeof.cl_int, dataSetSizePointer);
+
+        clSetKernelArg(sumGradientsKernel, 3,
                 Sizeof.cl_mem, gradientsMemObjectPointer);
 
-        cl_kernel updateWeightsKernel = initUpdateWeightsKernel(context, program, niPointer, gradientsMemObjectPointer, weightsMemoryObjectPointer);
+        cl_kernel updateWeightsKernel = initUpdateWeightsKernel(context, program, niPointer, gradientsMemObjectPointer, weightsMemoryObjectPointer, totalErrorMemObjectPointer);
 
         cl_kernel sumErrorsKernel = clCreateKernel(program, "sumErrors", null);
 
@@ -496,33 +550,15 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         clSetKernelArg(sumErrorsKernel, 2,
                 Sizeof.cl_mem, totalErrorMemObjectPointer);
 
+        clSetKernelArg(sumErrorsKernel, 3,
+                Sizeof.cl_int, sampleCountPointer);
+
 
         long[] global_work_size = new long[1];
 
         long[] local_work_size = new long[1];
 
-        long[] global_work_offset = new long[1];
-
-
-        if (workGroupSize > 0) {
-
-            global_work_offset[0] = 0;
-            global_work_size[0] = workGroupSize;
-            local_work_size[0] = maxWorkGroupSize;
-
-            clEnqueueNDRangeKernel(commandQueue, evaluateKernel, 1, global_work_offset,
-                    global_work_size, local_work_size, 0, null, null);
-        }
-
-        if (lastIteration > 0) {
-
-            global_work_offset[0] = workGroupSize;
-            global_work_size[0] = lastIteration;
-            local_work_size[0] = lastIteration;
-
-            clEnqueueNDRangeKernel(commandQueue, evaluateKernel, 1, global_work_offset,
-                    global_work_size, local_work_size, 0, null, null);
-        }
+        enqueueRange(commandQueue, evaluateKernel, 0, dataSetSize, maxWorkGroupSize);
 
         global_work_size[0] = 1;
         local_work_size[0] = 1;
@@ -536,140 +572,108 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
 
         double error = totalError[0];
         double bestError = error;
+        float[] bestWeights = null;
 
         statistics.signalStart();
         statistics.setError(error);
 
-        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
-
-            if (workGroupSize > 0) {
-
-                global_work_offset[0] = 0;
-                global_work_size[0] = workGroupSize;
-                local_work_size[0] = maxWorkGroupSize;
+        if (null != validation) {
+            bestWeights = weights.clone();
+            validation.reset();
+            network.setWeights(ArrayConverter.fromFloatToDouble(weights));
+            validation.validate(network, statistics);
+        }
 
-                clEnqueueNDRangeKernel(commandQueue, calculateLayerErrorKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
-            }
+        int batch = batchSize < 1 ? dataSetSize : Math.min(batchSize, dataSetSize);
 
-            if (lastIteration > 0) {
+        int active = dataSetSize;
 
-                global_work_offset[0] = workGroupSize;
-                global_work_size[0] = lastIteration;
-                local_work_size[0] = lastIteration;
+        double[] losses = null == sampling ? null : new double[dataSetSize];
 
-                clEnqueueNDRangeKernel(commandQueue, calculateLayerErrorKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
-            }
+        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
 
-            if (workGroupSize > 0) {
+            // Errors buffer holds error of every sample from last evaluation
+            if (null != sampling) {
+                clEnqueueReadBuffer(
+                        commandQueue, errorsMemoryObject, CL_TRUE, 0, Sizeof.cl_float * dataSetSize, errorsPointer, 0, null, null
+                );
 
-                global_work_offset[0] = 0;
-                global_work_size[0] = workGroupSize;
-                local_work_size[0] = maxWorkGroupSize;
+                for (int k = 0; k < dataSetSize; k++) {
+                    losses[k] = errors[k];
+                }
 
-                clEnqueueNDRangeKernel(commandQueue, calculateGradientsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
+                active = sampling.select(i, losses, indices, random);
             }
 
-            if (lastIteration > 0) {
-
-                global_work_offset[0] = workGroupSize;
-                global_work_size[0] = lastIteration;
-                local_work_size[0] = lastIteration;
-
-                clEnqueueNDRangeKernel(commandQueue, calculateGradientsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
+            if (batch < active) {
+                shuffle(indices, active);
             }
 
-            if (weightsWorkGroupSize > 0) {
-
-                global_work_offset[0] = 0;
-                global_work_size[0] = weightsWorkGroupSize;
-                local_work_size[0] = maxWorkGroupSize;
-
-                clEnqueueNDRangeKernel(commandQueue, sumGradientsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
+            // Evaluation covers every sample for any permutation, so outputs stay valid
+            if (batch < active || null != sampling) {
+                clEnqueueWriteBuffer(commandQueue, indicesMemoryObject, CL_TRUE, 0, Sizeof.cl_int * indices.length, indicesPointer, 0, null, null);
             }
 
-            if (weightsLastIteration > 0) {
+            for (int from = 0; from < active; from += batch) {
 
-                global_work_offset[0] = weightsWorkGroupSize;
-                global_work_size[0] = weightsLastIteration;
-                local_work_size[0] = weightsLastIteration;
+                int count = Math.min(batch, active - from);
 
-                clEnqueueNDRangeKernel(commandQueue, sumGradientsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
-            }
-
-            if (weightsWorkGroupSize > 0) {
-
-                global_work_offset[0] = 0;
-                global_work_size[0] = weightsWorkGroupSize;
-                local_work_size[0] = maxWorkGroupSize;
-
-                clEnqueueNDRangeKernel(commandQueue, updateWeightsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
+                // Outputs of first batch are left from evaluation at the end of previous iteration
+                if (from > 0) {
+                    enqueueRange(commandQueue, evaluateKernel, from, count, maxWorkGroupSize);
+                }
 
-            }
+                enqueueRange(commandQueue, calculateLayerErrorKernel, from, count, maxWorkGroupSize);
+                enqueueRange(commandQueue, calculateGradientsKernel, from, count, maxWorkGroupSize);
 
-            if (weightsLastIteration > 0) {
+                clSetKernelArg(sumGradientsKernel, 1,
+                        Sizeof.cl_int, Pointer.to(new int[] {
+                            from
+                        }));
 
-                global_work_offset[0] = weightsWorkGroupSize;
-                global_work_size[0] = weightsLastIteration;
-                local_work_size[0] = weightsLastIteration;
+                clSetKernelArg(sumGradientsKernel, 2,
+                        Sizeof.cl_int, Pointer.to(new int[] {
+                            count
+                        }));
 
-                clEnqueueNDRangeKernel(commandQueue, updateWeightsKernel, 1, global_work_offset,
-                        global_work_size, local_work_size, 0, null, null);
+                enqueueRange(commandQueue, sumGradientsKernel, 0, weightsOffset, maxWorkGroupSize);
+                enqueueRange(commandQueue, updateWeightsKernel, 0, weightsOffset, maxWorkGroupSize);
             }
 
-            if (workGroupSize > 0) {
+            enqueueRange(commandQueue, evaluateKernel, 0, dataSetSize, maxWorkGroupSize);
 
-                global_work_offset[0] = 0;
-                global_work_size[0] = workGroupSize;
-                local_work_size[0] = maxWorkGroupSize;
+            // Stop conditions and update kernels that revert steps need error of every iteration
+            enqueueRange(commandQueue, sumErrorsKernel, 0, 1, 1);
 
-                cl_event event = new cl_event();
+            clEnqueueReadBuffer(
+                    commandQueue, totalErrorMemoryObject, CL_TRUE, 0, Sizeof.cl_float, totalErrorPointer, 0, null, null
+            );
 
-                clEnqueueNDRangeKernel(commandQueue, evaluateKernel, 1, null,
-                        global_work_size, local_work_size, 0, null, event);
-
-                CL.clWaitForEvents(1, new cl_event[] {event});
-            }
+            error = totalError[0];
 
-            if (lastIteration > 0) {
+            statistics.incrementIteration();
+            statistics.setError(error);
 
-                global_work_offset[0] = workGroupSize;
-                global_work_size[0] = lastIteration;
-                local_work_size[0] = lastIteration;
+            if (null != validation && validation.isDue(i + 1)) {
 
-                cl_event event = new cl_event();
+                clEnqueueReadBuffer(
+                        commandQueue, weightsMemoryObject, CL_TRUE,
+                        0,
+                        Sizeof.cl_float * weights.length,
+                        weightsPointer, 0, null, null
+                );
 
-                clEnqueueNDRangeKernel(commandQueue, evaluateKernel, 1, null,
-                        global_work_size, local_work_size, 0, null, event);
+                network.setWeights(ArrayConverter.fromFloatToDouble(weights));
 
-                CL.clWaitForEvents(1, new cl_event[] {event});
+                if (validation.validate(network, statistics)) {
+                    System.arraycopy(weights, 0, bestWeights, 0, weights.length);
+                    bestError = error;
+                }
             }
 
-            statistics.incrementIteration();
-
         }
 
-        global_work_size[0] = 1;
-        local_work_size[0] = 1;
-
-        clEnqueueNDRangeKernel(commandQueue, sumErrorsKernel, 1, null,
-                global_work_size, local_work_size, 0, null, null);
-
-        clEnqueueReadBuffer(
-                commandQueue, totalErrorMemoryObject, CL_TRUE, 0, Sizeof.cl_float, totalErrorPointer, 0, null, null
-        );
-
-        error = totalError[0];
-
-        statistics.setError(error);
-
-        if (error < bestError) {
+        if (null == validation && error < bestError) {
             bestError = error;
         }
 
@@ -688,13 +692,14 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         clReleaseMemObject(layerDimensionsMemoryObject);
         clReleaseMemObject(neuronOffsetsMemoryObject);
         clReleaseMemObject(outputsMemoryObject);
-        clReleaseMemObject(rawOutputsMemoryObject);
         clReleaseMemObject(totalErrorMemoryObject);
         clReleaseMemObject(transferFunctionsMemoryObject);
         clReleaseMemObject(transferFunctionsParamsMemoryObject);
         clReleaseMemObject(transferFunctionsParamsOffsetsMemoryObject);
         clReleaseMemObject(weightsMemoryObject);
         clReleaseMemObject(weightsOffsetsMemoryObject);
+        clReleaseMemObject(indicesMemoryObject);
+        clReleaseMemObject(multiplicitiesMemoryObject);
 
         clReleaseKernel(evaluateKernel);
         clReleaseKernel(sumGradientsKernel);
@@ -709,11 +714,103 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
         clReleaseContext(context);
 
 
-        network.setWeights(ArrayConverter.fromFloatToDouble(weights));
+        network.setWeights(ArrayConverter.fromFloatToDouble(null == validation ? weights : bestWeights));
 
         return bestError;
     }
 
+    /**
+     * Number of samples after which weights are updated, samples are visited in new random
+     * order each iteration.
+     *
+     * @param batchSize Number of samples in one batch, 0 to update once per whole data set
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size can not be negative");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param deviceIndex Index of device among devices of trainer's type on first platform,
+     *                    see {@link #getDeviceCount(long)}
+     */
+    public void setDeviceIndex(int deviceIndex) {
+        if (deviceIndex < 0) {
+            throw new IllegalArgumentException("Device index can not be negative");
+        }
+        this.deviceIndex = deviceIndex;
+    }
+
+    /**
+     * @param deviceType One of org.jocl.CL.CL_DEVICE_TYPE_* constants
+     * @return Number of devices of given type on first platform, 0 if there are none
+     */
+    public static int getDeviceCount(long deviceType) {
+        CL.setExceptionsEnabled(true);
+
+        int numPlatformsArray[] = new int[1];
+        clGetPlatformIDs(0, null, numPlatformsArray);
+
+        if (0 == numPlatformsArray[0]) {
+            return 0;
+        }
+
+        cl_platform_id platforms[] = new cl_platform_id[numPlatformsArray[0]];
+        clGetPlatformIDs(platforms.length, platforms, null);
+
+        int numDevicesArray[] = new int[1];
+
+        try {
+            clGetDeviceIDs(platforms[0], deviceType, 0, null, numDevicesArray);
+        } catch (CLException e) {
+            return 0;
+        }
+
+        return numDevicesArray[0];
+    }
+
+    /**
+     * Trains on samples chosen by sampling between its full passes, errors of samples are
+     * read back from device after each iteration to score them.
+     *
+     * @param sampling Sample selection, null to train on whole data set every iteration
+     */
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * Shuffles first count indices
+     */
+    private void shuffle(int[] indices, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = temp;
+        }
+    }
+
+    /**
+     * Enqueues kernel for ids [offset, offset + count), in work groups of maximal size followed by one smaller group
+     */
+    private static void enqueueRange(cl_command_queue commandQueue, cl_kernel kernel, int offset, int count, int maxWorkGroupSize) {
+        int lastIteration = count % maxWorkGroupSize;
+        int workGroupSize = count - lastIteration;
+
+        if (workGroupSize > 0) {
+            clEnqueueNDRangeKernel(commandQueue, kernel, 1, new long[] { offset },
+                    new long[] { workGroupSize }, new long[] { maxWorkGroupSize }, 0, null, null);
+        }
+
+        if (lastIteration > 0) {
+            clEnqueueNDRangeKernel(commandQueue, kernel, 1, new long[] { offset + workGroupSize },
+                    new long[] { lastIteration }, new long[] { lastIteration }, 0, null, null);
+        }
+    }
+
     protected long getMaxWorkGroupSize(cl_device_id device)
     {
         ByteBuffer buffer = ByteBuffer.allocate(
@@ -728,7 +825,11 @@ public abstract class OpenCLPropagationTrainer implements Trainer {
 
     protected abstract String getUpdateWeightsSource(ResourceLoader loader);
 
-    protected abstract cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer);
+    /**
+     * @param totalErrorMemoryObjectPointer Error of current weights followed by error of previous weights,
+     *                                      updated each iteration
+     */
+    protected abstract cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer, Pointer totalErrorMemoryObjectPointer);
 
     protected abstract void cleanUpKernel();
 
@@ -26,12 +26,16 @@ public class OpenCLRPROPTrainer extends OpenCLPropagationTrainer {
 
     private int weightsSize;
 
+    private int variant = RPROPTrainer.RPROP;
+
     private cl_kernel updateWeightsKernel;
 
     private cl_mem previousGradientsMemoryObject;
 
     private cl_mem deltasMemoryObject;
 
+    private cl_mem previousStepsMemoryObject;
+
     public OpenCLRPROPTrainer(double kMinus, double kPlus, double deltaInitial, double deltaMin, double deltaMax, double lo, double hi, Random random, long deviceId) {
         super(0, lo, hi, random, deviceId);
         this.kMinus = kMinus;
@@ -51,13 +55,23 @@ public class OpenCLRPROPTrainer extends OpenCLPropagationTrainer {
         return super.train(net, dataSet, stopCondition, statistics);
     }
 
+    /**
+     * @param variant One of {@link RPROPTrainer#RPROP}, {@link RPROPTrainer#IRPROP_MINUS} or {@link RPROPTrainer#IRPROP_PLUS}
+     */
+    public void setVariant(int variant) {
+        if (variant < RPROPTrainer.RPROP || variant > RPROPTrainer.IRPROP_PLUS) {
+            throw new IllegalArgumentException("Unknown RPROP variant " + variant);
+        }
+        this.variant = variant;
+    }
+
     @Override
     protected String getUpdateWeightsSource(ResourceLoader loader) {
         return loader.load("/res/cl/rprop.cl");
     }
 
     @Override
-    protected cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer) {
+    protected cl_kernel initUpdateWeightsKernel(cl_context context, cl_program program, Pointer niMemoryObjectPointer, Pointer gradientsMemoryObjectPointer, Pointer weightsMemoryObjectPointer, Pointer totalErrorMemoryObjectPointer) {
 
         updateWeightsKernel = clCreateKernel(program, "updateWeights", null);
 
@@ -113,6 +127,23 @@ public class OpenCLRPROPTrainer extends OpenCLPropagationTrainer {
         clSetKernelArg(updateWeightsKernel, 7,
                 Sizeof.cl_mem, weightsMemoryObjectPointer);
 
+        clSetKernelArg(updateWeightsKernel, 8,
+                Sizeof.cl_int, Pointer.to(new int[] {
+                        variant
+                }));
+
+        clSetKernelArg(updateWeightsKernel, 9,
+                Sizeof.cl_mem, totalErrorMemoryObjectPointer);
+
+        previousStepsMemoryObject = clCreateBuffer(
+                context,
+                CL_MEM_READ_WRITE | CL_MEM_COPY_HOST_PTR,
+                Sizeof.cl_float * weightsSize, Pointer.to(new float[weightsSize]), null
+        );
+
+        clSetKernelArg(updateWeightsKernel, 10,
+                Sizeof.cl_mem, Pointer.to(previousStepsMemoryObject));
+
         return updateWeightsKernel;
     }
 
@@ -125,6 +156,7 @@ public class OpenCLRPROPTrainer extends OpenCLPropagationTrainer {
 
         clReleaseMemObject(previousGradientsMemoryObject);
         clReleaseMemObject(deltasMemoryObject);
+        clReleaseMemObject(previousStepsMemoryObject);
 
         clReleaseKernel(updateWeightsKernel);
 
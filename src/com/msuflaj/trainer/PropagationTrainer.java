@@ -1,9 +1,13 @@
 package com.msuflaj.trainer;
 
 import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
+import com.msuflaj.network.Kernels;
 import com.msuflaj.network.Network;
 import com.msuflaj.network.NetworkException;
 import com.msuflaj.network.Neuron;
+import com.msuflaj.network.Session;
 import com.msuflaj.statistics.Statistics;
 import com.msuflaj.transfer.TransferFunction;
 
@@ -11,8 +15,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-public abstract class PropagationTrainer implements Trainer {
+public abstract class PropagationTrainer implements InitializableTrainer, ValidatedTrainer {
 
     private final double lo;
 
@@ -20,9 +28,30 @@ public abstract class PropagationTrainer implements Trainer {
 
     private final Random random;
 
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    private Sampling sampling;
+
     private double ni;
 
     private boolean isOnlineMode = false;
+
+    private boolean[] mask;
+
+    private int parallelism = 1;
+
+    private int batchSize = 0;
+
+    private boolean isFusedError = false;
+
+    /**
+     * Errors of current weights and of weights before last update
+     */
+    private double currentError;
+
+    private double previousError;
     
     public static interface Trainable extends Network {
 
@@ -38,12 +67,15 @@ public abstract class PropagationTrainer implements Trainer {
 
         public double[] getWeights();
 
-        public double getRawOutput();
-
         public TransferFunction getTransferFunction();
 
         public Neuron[] getConnections();
 
+        /**
+         * @return Outputs of connected neurons, in same order as connections
+         */
+        public double[] getInputs();
+
     }
 
     protected abstract class ErrorNeuron {
@@ -60,6 +92,15 @@ public abstract class PropagationTrainer implements Trainer {
 
         protected double error;
 
+        protected boolean[] mask;
+
+        protected int maskOffset;
+
+        /**
+         * Index of first weight of this neuron in {@link Network#getWeights()} ordering
+         */
+        protected int offset;
+
         public ErrorNeuron(PropagationCompatibleNeuron neuron, ErrorNeuron[] frontNeurons, int index) {
             this.neuron = neuron;
             this.frontNeurons = frontNeurons;
@@ -74,7 +115,8 @@ public abstract class PropagationTrainer implements Trainer {
          * @param expected Expected error
          */
         public void calculateError(double expected) {
-            error = neuron.getTransferFunction().derivative(neuron.getRawOutput()) * (expected - neuron.getOutput());
+            double output = neuron.getOutput();
+            error = neuron.getTransferFunction().derivativeFromOutput(output) * (expected - output);
         }
 
         /**
@@ -87,15 +129,11 @@ public abstract class PropagationTrainer implements Trainer {
                 sum += neuron.error * neuron.neuron.getWeights()[index];
             }
 
-            error = neuron.getTransferFunction().derivative(neuron.getRawOutput()) * sum;
+            error = neuron.getTransferFunction().derivativeFromOutput(neuron.getOutput()) * sum;
         }
 
         public void calculateGradients() {
-            Neuron[] connections = neuron.getConnections();
-
-            for (int i = 0; i < connections.length; i++) {
-                gradients[i] += connections[i].getOutput() * error;
-            }
+            Kernels.axpy(error, neuron.getInputs(), 0, gradients, 0, gradients.length);
         }
 
         public void storeWeights() {
@@ -106,7 +144,27 @@ public abstract class PropagationTrainer implements Trainer {
             System.arraycopy(weights, 0, neuron.getWeights(), 0, weights.length);
         }
 
+        public void setOffset(int offset) {
+            this.offset = offset;
+        }
+
+        /**
+         * @param mask Mask of all weights in network
+         * @param offset Index of first weight of this neuron in mask
+         */
+        public void setMask(boolean[] mask, int offset) {
+            this.mask = mask;
+            this.maskOffset = offset;
+        }
+
         public void updateWeights(double ni) {
+            if (null != mask) {
+                for (int i = 0; i < gradients.length; i++) {
+                    if (!mask[maskOffset + i]) {
+                        gradients[i] = 0;
+                    }
+                }
+            }
             updateWeightsSpecific(ni);
             for (int i = 0; i < gradients.length; i++) {
                 gradients[i] = 0;
@@ -121,6 +179,281 @@ public abstract class PropagationTrainer implements Trainer {
 
     }
 
+    /**
+     * Propagates samples of its part of data set through neurons' weights using its own buffers,
+     * so workers can run concurrently. Returns sum of squared errors of its part.
+     */
+    private abstract static class SampleWorker implements Callable<Double> {
+
+        protected final List<ErrorNeuron[]> listOfErrorNeurons;
+
+        private final double[][] in;
+
+        private final double[][] out;
+
+        private final int[] multiplicities;
+
+        /**
+         * Order in which samples are visited, range of current batch is set before each run
+         */
+        protected final int[] indices;
+
+        protected int from;
+
+        protected int to;
+
+        /**
+         * Outputs of each layer in forward order, biased neurons are fixed at 1
+         */
+        protected final double[][] activations;
+
+        /**
+         * Errors in same order as listOfErrorNeurons
+         */
+        protected final double[][] errors;
+
+        public SampleWorker(List<ErrorNeuron[]> listOfErrorNeurons, int[] dimensions, boolean isBiased, double[][] in, double[][] out, int[] multiplicities, int[] indices) {
+            this.listOfErrorNeurons = listOfErrorNeurons;
+            this.in = in;
+            this.out = out;
+            this.multiplicities = multiplicities;
+            this.indices = indices;
+
+            int l = listOfErrorNeurons.size();
+
+            activations = new double[l + 1][];
+            activations[0] = new double[dimensions[0] + (isBiased ? 1 : 0)];
+            Arrays.fill(activations[0], 1);
+
+            errors = new double[l][];
+
+            for (int i = 0; i < l; i++) {
+                ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(i);
+                activations[l - i] = new double[errorNeurons.length];
+                Arrays.fill(activations[l - i], 1);
+                errors[i] = new double[errorNeurons.length];
+            }
+        }
+
+        /**
+         * Fills activations and errors for one sample
+         *
+         * @param u Row of sample
+         * @return Squared error of sample
+         */
+        protected double propagate(int u) {
+            int l = listOfErrorNeurons.size();
+
+            double error = 0;
+
+            System.arraycopy(in[u], 0, activations[0], 0, in[u].length);
+
+            for (int i = l - 1; i >= 0; i--) {
+                ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(i);
+                double[] inputs = activations[l - i - 1];
+                double[] outputs = activations[l - i];
+                for (int j = 0; j < errorNeurons.length; j++) {
+                    double[] weights = errorNeurons[j].neuron.getWeights();
+                    if (weights.length > 0) {
+                        outputs[j] = errorNeurons[j].neuron.getTransferFunction().calculate(Kernels.dot(weights, 0, inputs, 0, weights.length));
+                    }
+                }
+            }
+
+            double[] expected = out[u];
+            double[] outputs = activations[l];
+            ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(0);
+            double m = multiplicities[u];
+
+            // Scaling output errors scales every gradient of the sample
+            for (int k = 0; k < errorNeurons.length; k++) {
+                double output = outputs[k];
+                double difference = expected[k] - output;
+                errors[0][k] = errorNeurons[k].neuron.getTransferFunction().derivativeFromOutput(output) * difference * m;
+                error += m * difference * difference;
+            }
+
+            for (int i = 1; i < l; i++) {
+                ErrorNeuron[] frontNeurons = listOfErrorNeurons.get(i - 1);
+                errorNeurons = listOfErrorNeurons.get(i);
+                outputs = activations[l - i];
+                for (int j = 0; j < errorNeurons.length; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < frontNeurons.length; k++) {
+                        double[] weights = frontNeurons[k].neuron.getWeights();
+                        if (weights.length > 0) {
+                            sum += errors[i - 1][k] * weights[j];
+                        }
+                    }
+                    errors[i][j] = errorNeurons[j].neuron.getTransferFunction().derivativeFromOutput(outputs[j]) * sum;
+                }
+            }
+
+            return error;
+        }
+
+    }
+
+    /**
+     * Accumulates gradients of its part in its own buffers, weights are only read so workers
+     * can run concurrently between weight updates.
+     */
+    private static class GradientWorker extends SampleWorker {
+
+        /**
+         * Gradients in same order as listOfErrorNeurons
+         */
+        private final double[][][] gradients;
+
+        public GradientWorker(List<ErrorNeuron[]> listOfErrorNeurons, int[] dimensions, boolean isBiased, double[][] in, double[][] out, int[] multiplicities, int[] indices) {
+            super(listOfErrorNeurons, dimensions, isBiased, in, out, multiplicities, indices);
+
+            gradients = new double[listOfErrorNeurons.size()][][];
+
+            for (int i = 0; i < gradients.length; i++) {
+                ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(i);
+                gradients[i] = new double[errorNeurons.length][];
+                for (int j = 0; j < errorNeurons.length; j++) {
+                    gradients[i][j] = new double[errorNeurons[j].gradients.length];
+                }
+            }
+        }
+
+        @Override
+        public Double call() {
+            int l = listOfErrorNeurons.size();
+
+            double error = 0;
+
+            for (double[][] layer : gradients) {
+                for (double[] g : layer) {
+                    Arrays.fill(g, 0);
+                }
+            }
+
+            for (int p = from; p < to; p++) {
+
+                error += propagate(indices[p]);
+
+                for (int i = 0; i < l; i++) {
+                    double[] inputs = activations[l - i - 1];
+                    for (int j = 0; j < gradients[i].length; j++) {
+                        Kernels.axpy(errors[i][j], inputs, 0, gradients[i][j], 0, gradients[i][j].length);
+                    }
+                }
+            }
+
+            return error;
+        }
+
+    }
+
+    /**
+     * Online mode worker, applies plain gradient step to neurons' weights after each sample
+     * without any locking (Hogwild). Concurrent workers may read partially updated weights and
+     * occasionally overwrite each other's updates, which costs little when updates are small.
+     */
+    private static class HogwildWorker extends SampleWorker {
+
+        private final double ni;
+
+        public HogwildWorker(List<ErrorNeuron[]> listOfErrorNeurons, int[] dimensions, boolean isBiased, double[][] in, double[][] out, int[] multiplicities, int[] indices, double ni) {
+            super(listOfErrorNeurons, dimensions, isBiased, in, out, multiplicities, indices);
+            this.ni = ni;
+        }
+
+        @Override
+        public Double call() {
+            int l = listOfErrorNeurons.size();
+
+            double error = 0;
+
+            for (int p = from; p < to; p++) {
+
+                error += propagate(indices[p]);
+
+                for (int i = 0; i < l; i++) {
+                    ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(i);
+                    double[] inputs = activations[l - i - 1];
+                    for (int j = 0; j < errorNeurons.length; j++) {
+                        ErrorNeuron errorNeuron = errorNeurons[j];
+                        double[] weights = errorNeuron.neuron.getWeights();
+                        double step = ni * errors[i][j];
+                        if (null == errorNeuron.mask) {
+                            Kernels.axpy(step, inputs, 0, weights, 0, weights.length);
+                        } else {
+                            for (int k = 0; k < weights.length; k++) {
+                                if (errorNeuron.mask[errorNeuron.maskOffset + k]) {
+                                    weights[k] += step * inputs[k];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+
+            return error;
+        }
+
+    }
+
+    /**
+     * Sums squared errors for part of data set using its own network session
+     */
+    private static class ErrorWorker implements Callable<Double> {
+
+        private final Session session;
+
+        private final double[][] in;
+
+        private final double[][] out;
+
+        private final double[][] outputs;
+
+        private final int[] multiplicities;
+
+        /**
+         * Error of each sample of whole data set or null, part starts at offset
+         */
+        private final double[] losses;
+
+        private final int offset;
+
+        public ErrorWorker(Session session, double[][] in, double[][] out, double[][] outputs, int[] multiplicities, double[] losses, int offset) {
+            this.session = session;
+            this.in = in;
+            this.out = out;
+            this.outputs = outputs;
+            this.multiplicities = multiplicities;
+            this.losses = losses;
+            this.offset = offset;
+        }
+
+        @Override
+        public Double call() throws NetworkException {
+            session.process(in, outputs);
+
+            double error = 0;
+
+            for (int i = 0; i < in.length; i++) {
+                double[] values = outputs[i];
+                double[] temp = out[i];
+                double loss = 0;
+                for (int j = 0; j < values.length; j++) {
+                    double e = multiplicities[i] * (values[j] - temp[j]) * (values[j] - temp[j]);
+                    error += e;
+                    loss += e;
+                }
+                if (null != losses) {
+                    losses[offset + i] = loss;
+                }
+            }
+
+            return error;
+        }
+
+    }
+
     public PropagationTrainer(double ni, double lo, double hi, Random random) {
         if (ni < 0) {
             throw new IllegalArgumentException("Ni must be positive");
@@ -133,6 +466,7 @@ public abstract class PropagationTrainer implements Trainer {
         this.ni = ni;
         this.lo = lo;
         this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
         this.random = random;
     }
 
@@ -151,7 +485,18 @@ public abstract class PropagationTrainer implements Trainer {
         boolean isBiased = network.isBiased();
         ErrorNeuron[] lastErrorNeurons = null;
 
-        double range = hi - lo;
+        if (null != mask && mask.length != network.getWeightsCount()) {
+            throw new NetworkException("Mask size does not match number of weights");
+        }
+
+        int[] dimensions = network.getDimensions();
+        int extra = isBiased ? 1 : 0;
+
+        if (null == mask) {
+            double[] weights = new double[network.getWeightsCount()];
+            initializer.initialize(dimensions, isBiased, random, weights);
+            network.setWeights(weights);
+        }
 
         for (int i = listOfNeurons.size() - 1, l = i; i > 0; i--) {
 
@@ -159,13 +504,26 @@ public abstract class PropagationTrainer implements Trainer {
 
             ErrorNeuron[] errorNeurons = new ErrorNeuron[neurons.length];
 
-            for (int j = 0; j < errorNeurons.length; j++) {
+            int offset = 0;
+
+            for (int k = 1; k < i; k++) {
+                offset += dimensions[k] * (dimensions[k - 1] + extra);
+            }
+
+            for (int j = 0; j < errorNeurons.length; j++, offset += dimensions[i - 1] + extra) {
                 PropagationCompatibleNeuron neuron = (PropagationCompatibleNeuron) neurons[j];
                 double[] weights = neuron.getWeights();
-                for (int k = 0; k < weights.length; k++) {
-                    weights[k] = random.nextDouble() * range + lo;
+                for (int k = 0; null != mask && k < weights.length; k++) {
+                    if (!mask[offset + k]) {
+                        weights[k] = 0;
+                    }
                 }
                 errorNeurons[j] = createErrorNeuron(neuron, lastErrorNeurons, j);
+                errorNeurons[j].setOffset(offset);
+
+                if (null != mask) {
+                    errorNeurons[j].setMask(mask, offset);
+                }
 
             }
 
@@ -178,66 +536,168 @@ public abstract class PropagationTrainer implements Trainer {
         }
 
         double[] values = new double[network.getOutputNeuronsCount()];
+        double[][] outputs = new double[dataSet.first.length][network.getOutputNeuronsCount()];
 
-        double error = calculateError(network, dataSet);
-        double bestError = error;
+        double[][] in = dataSet.first;
+        double[][] out = dataSet.second;
+
+        int[] multiplicities = dataSet.getMultiplicities();
+
+        double[] losses = null == sampling ? null : new double[in.length];
+
+        int[] indices = new int[in.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+
+        int workersCount = Math.min(parallelism, in.length);
+
+        ForkJoinPool pool = workersCount > 1 ? new ForkJoinPool(workersCount) : null;
+
+        List<SampleWorker> sampleWorkers = new ArrayList<>(workersCount);
+        List<ErrorWorker> errorWorkers = new ArrayList<>(workersCount);
+
+        if (null != pool) {
+            for (int w = 0; w < workersCount; w++) {
+                int from = (int) ((long) in.length * w / workersCount);
+                int to = (int) ((long) in.length * (w + 1) / workersCount);
+                if (!isOnlineMode) {
+                    sampleWorkers.add(new GradientWorker(listOfErrorNeurons, dimensions, isBiased, in, out, multiplicities, indices));
+                } else if (supportsParallelOnlineMode()) {
+                    sampleWorkers.add(new HogwildWorker(listOfErrorNeurons, dimensions, isBiased, in, out, multiplicities, indices, ni));
+                }
+                errorWorkers.add(new ErrorWorker(network.createSession(),
+                        Arrays.copyOfRange(in, from, to), Arrays.copyOfRange(out, from, to), Arrays.copyOfRange(outputs, from, to),
+                        Arrays.copyOfRange(multiplicities, from, to), losses, from));
+            }
+        }
+
+        try {
+            return train(network, listOfErrorNeurons, dataSet, multiplicities, losses, indices, values, outputs, pool, sampleWorkers, errorWorkers, stopCondition, statistics);
+        } finally {
+            if (null != pool) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private double train(Trainable network, List<ErrorNeuron[]> listOfErrorNeurons, DataSet dataSet, int[] multiplicities, double[] losses, int[] indices, double[] values, double[][] outputs, ForkJoinPool pool,
+                         List<SampleWorker> sampleWorkers, List<ErrorWorker> errorWorkers, StopCondition stopCondition, Statistics statistics) throws NetworkException {
 
         double[][] in = dataSet.first;
         double[][] out = dataSet.second;
 
+        int sampleCount = dataSet.getSampleCount();
+
+        double error = null == pool ? calculateError(network, dataSet, multiplicities, losses, sampleCount, outputs) : calculateError(pool, errorWorkers, sampleCount);
+        currentError = Double.MAX_VALUE;
+        updateError(error);
+        double bestError = error;
+
+        int batch = isOnlineMode || batchSize < 1 ? in.length : Math.min(batchSize, in.length);
+
+        boolean isFused = isFusedError && !isOnlineMode && batch == in.length && null == sampling;
+
         statistics.signalStart();
         statistics.setError(error);
 
-        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
+        // In fused mode initial weights are validated in first iteration
+        if (null != validation) {
+            validation.reset();
+            if (!isFused) {
+                validation.validate(network, statistics);
+            }
+        }
 
-            for (int u = 0; u < in.length; u++) {
+        int i = 0;
 
-                network.process(in[u], values);
+        int active = in.length;
 
-                double[] expected = out[u];
+        for (; stopCondition.isConditionMet(i, error); i++) {
 
-                ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(0);
+            if (null != sampling) {
+                active = sampling.select(i, losses, indices, random);
+            }
 
-                for (int k = 0; k < errorNeurons.length; k++) {
-                    errorNeurons[k].calculateError(expected[k]);
-                }
+            if (batch < active) {
+                shuffle(indices, active);
+            }
+
+            for (int from = 0; from < active; from += batch) {
+
+                int to = Math.min(from + batch, active);
 
-                for (int j = 1, l = listOfErrorNeurons.size(); j < l; j++) {
+                double sum = 0;
+
+                if (sampleWorkers.isEmpty()) {
+                    for (int p = from; p < to; p++) {
+
+                        int u = indices[p];
+
+                        network.process(in[u], values);
+
+                        double[] expected = out[u];
+
+                        ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(0);
+
+                        double m = multiplicities[u];
+
+                        for (int k = 0; k < errorNeurons.length; k++) {
+                            errorNeurons[k].calculateError(expected[k]);
+                            errorNeurons[k].error *= m;
+                            sum += m * (values[k] - expected[k]) * (values[k] - expected[k]);
+                        }
 
-                    errorNeurons = listOfErrorNeurons.get(j);
+                        for (int j = 1, l = listOfErrorNeurons.size(); j < l; j++) {
 
-                    for (ErrorNeuron errorNeuron : errorNeurons) {
-                        errorNeuron.calculateError();
+                            errorNeurons = listOfErrorNeurons.get(j);
+
+                            for (ErrorNeuron errorNeuron : errorNeurons) {
+                                errorNeuron.calculateError();
+                            }
+                        }
+
+                        for (ErrorNeuron[] listOfErrorNeuron : listOfErrorNeurons) {
+                            for (ErrorNeuron neuron : listOfErrorNeuron) {
+                                neuron.calculateGradients();
+                                if (isOnlineMode) {
+                                    neuron.updateWeights(ni);
+                                }
+                            }
+                        }
                     }
+                } else {
+                    sum = propagate(pool, sampleWorkers, listOfErrorNeurons, from, to);
                 }
 
-                for (ErrorNeuron[] listOfErrorNeuron : listOfErrorNeurons) {
-                    for (ErrorNeuron neuron : listOfErrorNeuron) {
-                        neuron.calculateGradients();
-                        if (isOnlineMode) {
-                            neuron.updateWeights(ni);
-                        }
+                // Error of weights before this update, weights are stored before they change
+                if (isFused) {
+                    error = sum / (sampleCount << 1);
+                    updateError(error);
+                    if (isImproved(network, i, error, bestError, statistics)) {
+                        storeWeights(listOfErrorNeurons);
+                        bestError = error;
                     }
                 }
-            }
 
-            if (!isOnlineMode) {
-                for (ErrorNeuron[] listOfErrorNeuron : listOfErrorNeurons) {
-                    for (ErrorNeuron neuron : listOfErrorNeuron) {
-                        neuron.updateWeights(ni);
+                if (!isOnlineMode) {
+                    for (ErrorNeuron[] listOfErrorNeuron : listOfErrorNeurons) {
+                        for (ErrorNeuron neuron : listOfErrorNeuron) {
+                            neuron.updateWeights(ni);
+                        }
                     }
                 }
             }
 
-            error = calculateError(network, dataSet);
+            if (!isFused) {
+                error = null == pool ? calculateError(network, dataSet, multiplicities, losses, sampleCount, outputs) : calculateError(pool, errorWorkers, sampleCount);
+                updateError(error);
 
-            if (error < bestError) {
-                for (ErrorNeuron[] errorNeurons : listOfErrorNeurons) {
-                    for (ErrorNeuron errorNeuron : errorNeurons) {
-                        errorNeuron.storeWeights();
-                    }
+                if (isImproved(network, i + 1, error, bestError, statistics)) {
+                    storeWeights(listOfErrorNeurons);
+                    bestError = error;
                 }
-                bestError = error;
             }
 
             statistics.incrementIteration();
@@ -245,6 +705,17 @@ public abstract class PropagationTrainer implements Trainer {
 
         }
 
+        if (isFused) {
+            error = null == pool ? calculateError(network, dataSet, multiplicities, losses, sampleCount, outputs) : calculateError(pool, errorWorkers, sampleCount);
+
+            if (isImproved(network, i, error, bestError, statistics)) {
+                storeWeights(listOfErrorNeurons);
+                bestError = error;
+            }
+
+            statistics.setError(error);
+        }
+
         statistics.signalFinish();
 
         for (ErrorNeuron[] errorNeurons : listOfErrorNeurons) {
@@ -256,20 +727,209 @@ public abstract class PropagationTrainer implements Trainer {
         return bestError;
     }
 
-    private double calculateError(Trainable network, DataSet dataSet) throws NetworkException {
-        double[] values = new double[network.getOutputNeuronsCount()];
+    /**
+     * @param iteration Number of updates done to current weights
+     * @return Whether current weights should be kept, decided by validation error when validation is set
+     */
+    private boolean isImproved(Network network, int iteration, double error, double bestError, Statistics statistics) throws NetworkException {
+        if (null == validation) {
+            return error < bestError;
+        }
+        return validation.isDue(iteration) && validation.validate(network, statistics);
+    }
+
+    private void updateError(double error) {
+        previousError = currentError;
+        currentError = error;
+    }
+
+    /**
+     * @return True if last weights update increased error, can be used by update rules to revert steps
+     */
+    protected boolean hasErrorIncreased() {
+        return currentError > previousError;
+    }
+
+    private static void storeWeights(List<ErrorNeuron[]> listOfErrorNeurons) {
+        for (ErrorNeuron[] errorNeurons : listOfErrorNeurons) {
+            for (ErrorNeuron errorNeuron : errorNeurons) {
+                errorNeuron.storeWeights();
+            }
+        }
+    }
+
+    /**
+     * Splits range between workers, gradients of gradient workers are summed into neurons
+     * while Hogwild workers update weights themselves
+     *
+     * @return Sum of squared errors of samples in range, for weights before update
+     */
+    private static double propagate(ForkJoinPool pool, List<SampleWorker> workers, List<ErrorNeuron[]> listOfErrorNeurons, int from, int to) throws NetworkException {
+        for (int w = 0, n = workers.size(); w < n; w++) {
+            SampleWorker worker = workers.get(w);
+            worker.from = from + (int) ((long) (to - from) * w / n);
+            worker.to = from + (int) ((long) (to - from) * (w + 1) / n);
+        }
+
+        double error = 0;
+
+        for (Double e : invoke(pool, workers)) {
+            error += e;
+        }
+
+        for (SampleWorker sampleWorker : workers) {
+            if (!(sampleWorker instanceof GradientWorker)) {
+                continue;
+            }
+            GradientWorker worker = (GradientWorker) sampleWorker;
+            for (int i = 0; i < worker.gradients.length; i++) {
+                ErrorNeuron[] errorNeurons = listOfErrorNeurons.get(i);
+                for (int j = 0; j < errorNeurons.length; j++) {
+                    double[] gradients = errorNeurons[j].gradients;
+                    Kernels.axpy(1, worker.gradients[i][j], 0, gradients, 0, gradients.length);
+                }
+            }
+        }
+
+        return error;
+    }
+
+    private static double calculateError(ForkJoinPool pool, List<ErrorWorker> workers, int count) throws NetworkException {
+        double error = 0;
+
+        for (Double e : invoke(pool, workers)) {
+            error += e;
+        }
+
+        return error / (count << 1);
+    }
+
+    /**
+     * Shuffles first count indices
+     */
+    private void shuffle(int[] indices, int count) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = temp;
+        }
+    }
+
+    private static <T> List<T> invoke(ForkJoinPool pool, List<? extends Callable<T>> tasks) throws NetworkException {
+        List<T> ret = new ArrayList<>(tasks.size());
+
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                ret.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof NetworkException) {
+                    throw (NetworkException) e.getCause();
+                }
+                throw new NetworkException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NetworkException(e);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param losses Filled with error of each sample when not null
+     */
+    private double calculateError(Trainable network, DataSet dataSet, int[] multiplicities, double[] losses, int count, double[][] outputs) throws NetworkException {
+        network.process(dataSet.first, outputs);
 
         double error = 0;
 
         for (int i = 0; i < dataSet.first.length; i++) {
-            network.process(dataSet.first[i], values);
+            double[] values = outputs[i];
             double[] temp = dataSet.second[i];
+            double loss = 0;
             for (int j = 0; j < values.length; j++) {
-                error += (values[j] - temp[j]) * (values[j] - temp[j]);
+                double e = multiplicities[i] * (values[j] - temp[j]) * (values[j] - temp[j]);
+                error += e;
+                loss += e;
+            }
+            if (null != losses) {
+                losses[i] = loss;
             }
         }
 
-        return error / (dataSet.first.length << 1);
+        return error / (count << 1);
+    }
+
+    @Override
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
+
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * Trains on samples chosen by sampling between its full passes, samples are scored by
+     * errors evaluated after each iteration. Disables fused error, which would cover only
+     * chosen samples.
+     *
+     * @param sampling Sample selection, null to train on whole data set every iteration
+     */
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * Restricts training to weights that are set in mask, used to fine-tune pruned networks.
+     * When mask is set training continues from current weights of the network and weights
+     * that are not set in mask are kept at 0.
+     *
+     * @param mask Flag for each weight in {@link Network#getWeights()} ordering, null to train all weights
+     */
+    public void setMask(boolean[] mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Number of threads used to calculate gradients in batch mode and errors after each iteration,
+     * data set is split into equal parts with one part per thread. In online mode each thread
+     * updates shared weights from its part without locking, see {@link #supportsParallelOnlineMode()}.
+     *
+     * @param parallelism Number of threads, 1 to train in calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Number of samples after which weights are updated, samples are visited in new random
+     * order each iteration. Ignored in online mode.
+     *
+     * @param batchSize Number of samples in one batch, 0 to update once per whole data set
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("Batch size can not be negative");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * When set, error reported after each iteration is summed during gradient calculation
+     * instead of separate pass over data set, so it belongs to weights before the update
+     * (one iteration behind). Weights after last iteration are evaluated once at the end.
+     * Only used when weights are updated once per whole data set.
+     *
+     * @param fusedError True to sum error during gradient calculation
+     */
+    public void setFusedError(boolean fusedError) {
+        this.isFusedError = fusedError;
     }
 
     public void setOnlineMode(boolean onlineMode) throws NetworkException {
@@ -279,6 +939,14 @@ public abstract class PropagationTrainer implements Trainer {
         this.isOnlineMode = onlineMode;
     }
 
+    /**
+     * @return True if online mode can use Hogwild workers when parallelism is greater than 1,
+     * otherwise online mode runs in calling thread
+     */
+    protected boolean supportsParallelOnlineMode() {
+        return false;
+    }
+
     protected abstract ErrorNeuron createErrorNeuron(PropagationCompatibleNeuron regularNeuron, ErrorNeuron[] errorNeurons, int index);
 
     public abstract boolean supportsOnlineMode();
@@ -1,10 +1,30 @@
-
 package com.msuflaj.trainer;
 
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+
+import java.util.Arrays;
 import java.util.Random;
 
 public class RPROPTrainer extends PropagationTrainer {
 
+    /**
+     * Original RPROP, steps are taken even after gradient changes sign
+     */
+    public static final int RPROP = 0;
+
+    /**
+     * Gradient is zeroed after sign change and no step is taken
+     */
+    public static final int IRPROP_MINUS = 1;
+
+    /**
+     * As {@link #IRPROP_MINUS}, but previous step is also reverted when error increased
+     */
+    public static final int IRPROP_PLUS = 2;
+
     private double deltaInitial;
 
     private double deltaMin;
@@ -15,20 +35,25 @@ public class RPROPTrainer extends PropagationTrainer {
 
     private double kPlus;
 
+    private int variant = RPROP;
+
+    /**
+     * Step size of each weight in {@link Network#getWeights()} ordering
+     */
+    private double[] deltas;
+
+    private double[] initialDeltas;
+
     private class ErrorNeuron extends PropagationTrainer.ErrorNeuron {
 
         private double[] previousGradients;
 
-        private double[] deltas;
+        private double[] previousSteps;
 
         public ErrorNeuron(PropagationCompatibleNeuron neuron, PropagationTrainer.ErrorNeuron[] frontNeurons, int index) {
             super(neuron, frontNeurons, index);
             previousGradients = new double[gradients.length];
-            deltas = new double[previousGradients.length];
-
-            for (int i = 0; i < deltas.length; i++) {
-                deltas[i] = deltaInitial;
-            }
+            previousSteps = new double[previousGradients.length];
         }
 
         @Override
@@ -36,15 +61,15 @@ public class RPROPTrainer extends PropagationTrainer {
 
             double[] weights = neuron.getWeights();
 
+            boolean isReverted = IRPROP_PLUS == variant && hasErrorIncreased();
+
             for (int i = 0; i < weights.length; i++) {
 
                 double currentGradient = -gradients[i];
 
                 double gradientsMultiplied = currentGradient * previousGradients[i];
 
-                previousGradients[i] = currentGradient;
-
-                double currentDelta = deltas[i];
+                double currentDelta = deltas[offset + i];
 
                 if (gradientsMultiplied > 0) {
                     currentDelta *= kPlus;
@@ -58,14 +83,30 @@ public class RPROPTrainer extends PropagationTrainer {
                     currentDelta = deltaMin;
                 }
 
-                deltas[i] = currentDelta;
+                deltas[offset + i] = currentDelta;
+
+                if (RPROP != variant && gradientsMultiplied < 0) {
+                    if (isReverted) {
+                        weights[i] -= previousSteps[i];
+                    }
+                    previousSteps[i] = 0;
+                    previousGradients[i] = 0;
+                    continue;
+                }
+
+                previousGradients[i] = currentGradient;
+
+                double step = 0;
 
                 if (currentGradient > 0) {
-                    weights[i] -= currentDelta;
+                    step = -currentDelta;
                 } else if (currentGradient < 0) {
-                    weights[i] += currentDelta;
+                    step = currentDelta;
                 }
 
+                weights[i] += step;
+                previousSteps[i] = step;
+
             }
 
         }
@@ -81,6 +122,46 @@ public class RPROPTrainer extends PropagationTrainer {
         this.deltaInitial = deltaInitial;
     }
 
+    /**
+     * @param variant One of {@link #RPROP}, {@link #IRPROP_MINUS} or {@link #IRPROP_PLUS}
+     */
+    public void setVariant(int variant) {
+        if (variant < RPROP || variant > IRPROP_PLUS) {
+            throw new IllegalArgumentException("Unknown RPROP variant " + variant);
+        }
+        this.variant = variant;
+    }
+
+    /**
+     * Step sizes to start next training from instead of deltaInitial, used to resume training
+     * together with weights from {@link #getDeltas()} of previous run
+     *
+     * @param deltas Step size of each weight in {@link Network#getWeights()} ordering, null to start from deltaInitial
+     */
+    public void setInitialDeltas(double[] deltas) {
+        initialDeltas = null == deltas ? null : deltas.clone();
+    }
+
+    /**
+     * @return Step sizes after last training in {@link Network#getWeights()} ordering, null before training
+     */
+    public double[] getDeltas() {
+        return null == deltas ? null : deltas.clone();
+    }
+
+    @Override
+    public double train(Network net, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+        if (null == initialDeltas) {
+            deltas = new double[net.getWeightsCount()];
+            Arrays.fill(deltas, deltaInitial);
+        } else if (initialDeltas.length == net.getWeightsCount()) {
+            deltas = initialDeltas.clone();
+        } else {
+            throw new NetworkException("Initial deltas size does not match number of weights");
+        }
+        return super.train(net, dataSet, stopCondition, statistics);
+    }
+
     @Override
     protected PropagationTrainer.ErrorNeuron createErrorNeuron(PropagationCompatibleNeuron regularNeuron, PropagationTrainer.ErrorNeuron[] errorNeurons, int index) {
         return new ErrorNeuron(regularNeuron, errorNeurons, index);
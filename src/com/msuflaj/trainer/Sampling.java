@@ -0,0 +1,105 @@
+package com.msuflaj.trainer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Hard example mining. Between full passes trainers update weights only from samples with
+ * highest error plus few randomly chosen others, so samples that are already learned are not
+ * propagated every iteration. Errors of all samples are still evaluated after each iteration
+ * and serve as scores for next selection.
+ */
+public class Sampling {
+
+    private final double hardFraction;
+
+    private final double refreshFraction;
+
+    private final int interval;
+
+    private double[] sorted;
+
+    /**
+     * @param hardFraction Fraction of data set with highest error that is trained on
+     * @param refreshFraction Fraction of data set chosen at random from remaining samples
+     * @param interval Number of iterations between passes over whole data set
+     */
+    public Sampling(double hardFraction, double refreshFraction, int interval) {
+        if (hardFraction < 0 || refreshFraction < 0 || hardFraction + refreshFraction > 1) {
+            throw new IllegalArgumentException("Fractions must be non negative and sum to at most 1");
+        }
+
+        if (hardFraction + refreshFraction == 0) {
+            throw new IllegalArgumentException("At least one fraction must be positive");
+        }
+
+        if (interval < 1) {
+            throw new IllegalArgumentException("Full pass interval must be positive");
+        }
+
+        this.hardFraction = hardFraction;
+        this.refreshFraction = refreshFraction;
+        this.interval = interval;
+    }
+
+    /**
+     * Moves samples to train on to the beginning of indices, order of the rest is unspecified
+     *
+     * @param iteration Number of weight updates done so far
+     * @param errors Error of each sample, index is sample row
+     * @param indices Permutation of sample rows
+     * @param random Used to choose random samples
+     * @return Number of samples to train on
+     */
+    public int select(int iteration, double[] errors, int[] indices, Random random) {
+        int n = indices.length;
+
+        if (0 == iteration % interval) {
+            return n;
+        }
+
+        int hard = (int) Math.round(hardFraction * n);
+        int refresh = Math.min((int) Math.round(refreshFraction * n), n - hard);
+
+        int front = 0;
+
+        if (hard > 0) {
+            if (null == sorted || sorted.length != n) {
+                sorted = new double[n];
+            }
+
+            System.arraycopy(errors, 0, sorted, 0, n);
+            Arrays.sort(sorted);
+
+            double threshold = sorted[n - hard];
+
+            for (int u = 0, back = n; u < n; u++) {
+                if (errors[u] > threshold) {
+                    indices[front++] = u;
+                } else {
+                    indices[--back] = u;
+                }
+            }
+
+            // Samples equal to threshold fill remaining places
+            for (int p = front; p < n && front < hard; p++) {
+                if (errors[indices[p]] == threshold) {
+                    swap(indices, p, front++);
+                }
+            }
+        }
+
+        for (int k = front; k < hard + refresh; k++) {
+            swap(indices, k, k + random.nextInt(n - k));
+        }
+
+        return hard + refresh;
+    }
+
+    private static void swap(int[] indices, int i, int j) {
+        int temp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = temp;
+    }
+
+}
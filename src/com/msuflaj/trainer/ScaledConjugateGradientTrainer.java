@@ -0,0 +1,155 @@
+package com.msuflaj.trainer;
+
+import java.util.Random;
+
+/**
+ * Scaled conjugate gradient trainer (Moller, 1993).
+ *
+ * Instead of line search, curvature along search direction is estimated from gradient at a
+ * nearby point and step is scaled with Levenberg-Marquardt like damping. Each iteration takes
+ * two passes over data set, error of trial point comes with its gradient.
+ */
+public class ScaledConjugateGradientTrainer extends VectorTrainer {
+
+    private static final double SIGMA = 1e-4;
+
+    private static final double LAMBDA = 1e-6;
+
+    private double[] direction;
+
+    private double[] residual;
+
+    private double[] trial;
+
+    private double[] trialGradients;
+
+    private double[] curvature;
+
+    private double lambda;
+
+    private double lambdaBar;
+
+    private double delta;
+
+    private boolean isSuccess;
+
+    private int iteration;
+
+    public ScaledConjugateGradientTrainer(double lo, double hi, Random random) {
+        super(lo, hi, random);
+    }
+
+    @Override
+    protected void init(double[] weights, double[] gradients) {
+        int n = weights.length;
+
+        residual = new double[n];
+        direction = new double[n];
+        trial = new double[n];
+        trialGradients = new double[n];
+        curvature = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            residual[i] = -gradients[i];
+            direction[i] = residual[i];
+        }
+
+        lambda = LAMBDA;
+        lambdaBar = 0;
+        isSuccess = true;
+        iteration = 1;
+    }
+
+    @Override
+    protected double iterate(double[] weights, double error) {
+        int n = weights.length;
+
+        double norm = dot(direction, direction);
+
+        if (0 == norm) {
+            return error;
+        }
+
+        if (isSuccess) {
+            double sigma = SIGMA / Math.sqrt(norm);
+
+            for (int i = 0; i < n; i++) {
+                trial[i] = weights[i] + sigma * direction[i];
+            }
+
+            calculate(trial, curvature);
+
+            // Gradient at weights is -residual
+            for (int i = 0; i < n; i++) {
+                curvature[i] = (curvature[i] + residual[i]) / sigma;
+            }
+
+            delta = dot(direction, curvature);
+        }
+
+        delta += (lambda - lambdaBar) * norm;
+
+        // Make Hessian approximation positive definite
+        if (delta <= 0) {
+            lambdaBar = 2 * (lambda - delta / norm);
+            delta = -delta + lambda * norm;
+            lambda = lambdaBar;
+        }
+
+        double mu = dot(direction, residual);
+        double alpha = mu / delta;
+
+        for (int i = 0; i < n; i++) {
+            trial[i] = weights[i] + alpha * direction[i];
+        }
+
+        double trialError = calculate(trial, trialGradients);
+
+        double comparison = 2 * delta * (error - trialError) / (mu * mu);
+
+        if (comparison >= 0) {
+            System.arraycopy(trial, 0, weights, 0, n);
+
+            double residualNorm = 0;
+            double product = 0;
+
+            for (int i = 0; i < n; i++) {
+                double r = -trialGradients[i];
+                residualNorm += r * r;
+                product += r * residual[i];
+                residual[i] = r;
+            }
+
+            lambdaBar = 0;
+            isSuccess = true;
+
+            // Restart every n iterations
+            if (0 == iteration % n) {
+                System.arraycopy(residual, 0, direction, 0, n);
+            } else {
+                double beta = (residualNorm - product) / mu;
+                for (int i = 0; i < n; i++) {
+                    direction[i] = residual[i] + beta * direction[i];
+                }
+            }
+
+            if (comparison >= 0.75) {
+                lambda /= 4;
+            }
+
+            error = trialError;
+        } else {
+            lambdaBar = lambda;
+            isSuccess = false;
+        }
+
+        if (comparison < 0.25) {
+            lambda += delta * (1 - comparison) / norm;
+        }
+
+        iteration++;
+
+        return error;
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.msuflaj.trainer;
+
+/**
+ * Trainer that can evaluate held-out data set during training and keep weights
+ * with lowest validation error.
+ */
+public interface ValidatedTrainer extends Trainer {
+
+    /**
+     * @param validation Validation to run during training, null to keep weights with lowest training error
+     */
+    public void setValidation(Validation validation);
+
+}
@@ -0,0 +1,92 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+
+/**
+ * Held-out data set that trainers evaluate every few iterations. When set, trainers keep
+ * weights with lowest validation error instead of weights with lowest training error.
+ */
+public class Validation {
+
+    private final DataSet dataSet;
+
+    private final int interval;
+
+    private final double[][] outputs;
+
+    private final int[] multiplicities;
+
+    private final int count;
+
+    private double bestError;
+
+    /**
+     * @param dataSet Samples that are not used for training
+     * @param interval Number of iterations between evaluations
+     */
+    public Validation(DataSet dataSet, int interval) {
+        if (0 == dataSet.first.length) {
+            throw new IllegalArgumentException("Validation set must not be empty");
+        }
+
+        if (interval < 1) {
+            throw new IllegalArgumentException("Validation interval must be positive");
+        }
+
+        this.dataSet = dataSet;
+        this.interval = interval;
+
+        outputs = new double[dataSet.second.length][dataSet.second[0].length];
+        multiplicities = dataSet.getMultiplicities();
+        count = dataSet.getSampleCount();
+    }
+
+    /**
+     * Called by trainers before initial weights are validated
+     */
+    public void reset() {
+        bestError = Double.MAX_VALUE;
+    }
+
+    /**
+     * @param iteration Number of weight updates done so far
+     * @return Whether weights should be validated, trainers that keep weights outside of network
+     * copy them to network only in that case
+     */
+    public boolean isDue(int iteration) {
+        return 0 == iteration % interval;
+    }
+
+    /**
+     * Evaluates network and reports error to statistics
+     *
+     * @return Whether network has lowest validation error so far
+     */
+    public boolean validate(Network network, Statistics statistics) throws NetworkException {
+        network.process(dataSet.first, outputs);
+
+        double error = 0;
+
+        for (int i = 0; i < outputs.length; i++) {
+            double[] expected = dataSet.second[i];
+            for (int j = 0; j < expected.length; j++) {
+                error += multiplicities[i] * (outputs[i][j] - expected[j]) * (outputs[i][j] - expected[j]);
+            }
+        }
+
+        error /= count << 1;
+
+        statistics.setValidationError(error);
+
+        if (error < bestError) {
+            bestError = error;
+            return true;
+        }
+
+        return false;
+    }
+
+}
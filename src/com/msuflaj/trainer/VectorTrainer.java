@@ -0,0 +1,163 @@
+package com.msuflaj.trainer;
+
+import com.msuflaj.dataset.DataSet;
+import com.msuflaj.initialization.UniformInitializer;
+import com.msuflaj.initialization.WeightsInitializer;
+import com.msuflaj.network.Network;
+import com.msuflaj.network.NetworkException;
+import com.msuflaj.statistics.Statistics;
+
+import java.util.Random;
+
+/**
+ * Base of trainers that treat all weights as one vector and only need error and its gradient
+ * over whole data set, see {@link GradientCalculator}.
+ */
+public abstract class VectorTrainer implements InitializableTrainer, ValidatedTrainer {
+
+    private final double lo;
+
+    private final double hi;
+
+    private final Random random;
+
+    private WeightsInitializer initializer;
+
+    private Validation validation;
+
+    private GradientCalculator calculator;
+
+    private double[][] in;
+
+    private double[][] out;
+
+    private int[] multiplicities;
+
+    private int count;
+
+    public VectorTrainer(double lo, double hi, Random random) {
+        if (lo >= hi) {
+            throw new IllegalArgumentException("Down boundary must be less than upper boundary");
+        }
+
+        this.lo = lo;
+        this.hi = hi;
+        this.initializer = new UniformInitializer(lo, hi);
+        this.random = random;
+    }
+
+    @Override
+    public void setInitializer(WeightsInitializer initializer) {
+        this.initializer = null == initializer ? new UniformInitializer(lo, hi) : initializer;
+    }
+
+    @Override
+    public void setValidation(Validation validation) {
+        this.validation = validation;
+    }
+
+    @Override
+    public double train(Network network, DataSet dataSet, StopCondition stopCondition, Statistics statistics) throws NetworkException, UnexpectedNetworkException {
+
+        calculator = new GradientCalculator(network);
+
+        int weightsCount = calculator.getWeightsCount();
+
+        if (weightsCount != network.getWeightsCount()) {
+            throw new UnexpectedNetworkException("Network weights count does not match its dimensions");
+        }
+
+        in = dataSet.first;
+        out = dataSet.second;
+        multiplicities = dataSet.getMultiplicities();
+        count = dataSet.getSampleCount();
+
+        double[] weights = new double[weightsCount];
+
+        initializer.initialize(network.getDimensions(), network.isBiased(), random, weights);
+
+        double[] gradients = new double[weightsCount];
+
+        double error = calculate(weights, gradients);
+
+        double[] bestWeights = weights.clone();
+        double bestError = error;
+
+        init(weights, gradients);
+
+        statistics.signalStart();
+        statistics.setError(error);
+
+        if (null != validation) {
+            validation.reset();
+            network.setWeights(weights);
+            validation.validate(network, statistics);
+        }
+
+        for (int i = 0; stopCondition.isConditionMet(i, error); i++) {
+
+            error = iterate(weights, error);
+
+            if (null == validation ? error < bestError : validation.isDue(i + 1) && validate(network, weights, statistics)) {
+                System.arraycopy(weights, 0, bestWeights, 0, weightsCount);
+                bestError = error;
+            }
+
+            statistics.incrementIteration();
+            statistics.setError(error);
+        }
+
+        statistics.signalFinish();
+
+        network.setWeights(bestWeights);
+
+        calculator = null;
+        in = null;
+        out = null;
+        multiplicities = null;
+
+        return bestError;
+    }
+
+    private boolean validate(Network network, double[] weights, Statistics statistics) throws NetworkException {
+        network.setWeights(weights);
+        return validation.validate(network, statistics);
+    }
+
+    /**
+     * One pass over whole data set
+     *
+     * @param weights Weights to evaluate
+     * @param gradients Filled with gradient of error
+     * @return Error of given weights
+     */
+    protected double calculate(double[] weights, double[] gradients) {
+        return calculator.calculate(weights, in, out, multiplicities, count, gradients);
+    }
+
+    /**
+     * Called before training starts
+     *
+     * @param weights Initial weights
+     * @param gradients Gradient of error at initial weights
+     */
+    protected abstract void init(double[] weights, double[] gradients);
+
+    /**
+     * Moves weights in place
+     *
+     * @param weights Current weights
+     * @param error Error of current weights
+     * @return Error of updated weights
+     */
+    protected abstract double iterate(double[] weights, double error);
+
+    protected static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.msuflaj.transfer;
+
+/**
+ * Table driven approximation of {@link SigmoidFunction}
+ */
+public class FastSigmoidFunction extends TableFunction {
+
+    /**
+     * Largest absolute value of second derivative of sigmoid, sqrt(3) / 18
+     */
+    private static final double MAX_SECOND_DERIVATIVE = Math.sqrt(3) / 18;
+
+    public FastSigmoidFunction(double maxError) {
+        super(maxError, MAX_SECOND_DERIVATIVE, Math.log((2 - maxError) / maxError));
+    }
+
+    @Override
+    protected double exact(double value) {
+        return 1 / (1 + Math.exp(-value));
+    }
+
+    @Override
+    public double derivative(double value) {
+        double v = calculate(value);
+        return (1 - v) * v;
+    }
+
+    @Override
+    public double derivativeFromOutput(double output) {
+        return (1 - output) * output;
+    }
+
+    @Override
+    public int getId() {
+        return 5;
+    }
+}
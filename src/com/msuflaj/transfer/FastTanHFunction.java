@@ -0,0 +1,37 @@
+package com.msuflaj.transfer;
+
+/**
+ * Table driven approximation of {@link TanHFunction}
+ */
+public class FastTanHFunction extends TableFunction {
+
+    /**
+     * Largest absolute value of second derivative of tanh, 4 / (3 * sqrt(3))
+     */
+    private static final double MAX_SECOND_DERIVATIVE = 4 / (3 * Math.sqrt(3));
+
+    public FastTanHFunction(double maxError) {
+        super(maxError, MAX_SECOND_DERIVATIVE, 0.5 * Math.log((4 - maxError) / maxError));
+    }
+
+    @Override
+    protected double exact(double value) {
+        return Math.tanh(value);
+    }
+
+    @Override
+    public double derivative(double value) {
+        double v = calculate(value);
+        return 1 - v * v;
+    }
+
+    @Override
+    public double derivativeFromOutput(double output) {
+        return 1 - output * output;
+    }
+
+    @Override
+    public int getId() {
+        return 4;
+    }
+}
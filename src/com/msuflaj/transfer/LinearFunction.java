@@ -22,6 +22,11 @@ public class LinearFunction implements TransferFunction {
         return mult;
     }
 
+    @Override
+    public double derivativeFromOutput(double output) {
+        return mult;
+    }
+
     @Override
     public int getId() {
         return 3;
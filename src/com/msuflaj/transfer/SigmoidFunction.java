@@ -13,6 +13,11 @@ public class SigmoidFunction implements TransferFunction {
         return (1 - v) * v;
     }
 
+    @Override
+    public double derivativeFromOutput(double output) {
+        return (1 - output) * output;
+    }
+
     @Override
     public int getId() {
         return 2;
@@ -0,0 +1,78 @@
+package com.msuflaj.transfer;
+
+/**
+ * Approximates transfer function with lookup table and linear interpolation.
+ *
+ * Table covers [-range, range] with step chosen so that interpolation error is below
+ * requested maximal absolute error, values outside of range are clamped to the first
+ * or last table value. Table is exposed through {@link #getParams()} as
+ * [low, 1 / step, n, value0, ..., valueN-1] so that OpenCL kernels can use it.
+ */
+public abstract class TableFunction implements TransferFunction {
+
+    protected final double low;
+
+    protected final double inverseStep;
+
+    protected final double[] table;
+
+    /**
+     * @param maxError Maximal absolute error of approximation
+     * @param maxSecondDerivative Largest absolute value of second derivative of the function
+     * @param range Value after which function differs from its limit by less than half of maxError
+     */
+    protected TableFunction(double maxError, double maxSecondDerivative, double range) {
+        if (!(maxError > 0) || maxError >= 1) {
+            throw new IllegalArgumentException("Maximal error must be in (0, 1)");
+        }
+
+        double step = Math.sqrt(8 * maxError / maxSecondDerivative);
+
+        int n = (int) Math.ceil(2 * range / step) + 1;
+
+        low = -range;
+        step = 2 * range / (n - 1);
+        inverseStep = 1 / step;
+        table = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            table[i] = exact(low + i * step);
+        }
+    }
+
+    /**
+     * @return Exact value of approximated function
+     */
+    protected abstract double exact(double value);
+
+    @Override
+    public double calculate(double value) {
+        double position = (value - low) * inverseStep;
+
+        if (position <= 0) {
+            return table[0];
+        }
+
+        if (position >= table.length - 1) {
+            return table[table.length - 1];
+        }
+
+        int index = (int) position;
+
+        return table[index] + (table[index + 1] - table[index]) * (position - index);
+    }
+
+    @Override
+    public double[] getParams() {
+        double[] params = new double[table.length + 3];
+        params[0] = low;
+        params[1] = inverseStep;
+        params[2] = table.length;
+        System.arraycopy(table, 0, params, 3, table.length);
+        return params;
+    }
+
+    public int getTableSize() {
+        return table.length;
+    }
+}
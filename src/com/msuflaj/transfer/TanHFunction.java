@@ -13,6 +13,11 @@ public class TanHFunction implements TransferFunction {
         return 1 - v * v;
     }
 
+    @Override
+    public double derivativeFromOutput(double output) {
+        return 1 - output * output;
+    }
+
     @Override
     public int getId() {
         return 1;
@@ -6,6 +6,14 @@ public interface TransferFunction {
 
     public double derivative(double value);
 
+    /**
+     * Calculates derivative from already calculated output so that function does not need to be evaluated again
+     *
+     * @param output Value returned by {@link #calculate(double)}
+     * @return Derivative in point for which output was calculated
+     */
+    public double derivativeFromOutput(double output);
+
     public int getId();
 
     public double[] getParams();
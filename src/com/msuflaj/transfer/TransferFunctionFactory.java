@@ -0,0 +1,60 @@
+package com.msuflaj.transfer;
+
+/**
+ * Creates transfer functions from their configuration names
+ * (tanh, sigmoid, linear, fast_tanh and fast_sigmoid).
+ */
+public class TransferFunctionFactory {
+
+    private final double maxError;
+
+    /**
+     * @param maxError Maximal absolute error of table driven functions
+     */
+    public TransferFunctionFactory(double maxError) {
+        this.maxError = maxError;
+    }
+
+    public TransferFunction create(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "tanh" :
+                return new TanHFunction();
+            case "sigmoid" :
+                return new SigmoidFunction();
+            case "linear" :
+                return new LinearFunction();
+            case "fast_tanh" :
+                return new FastTanHFunction(maxError);
+            case "fast_sigmoid" :
+                return new FastSigmoidFunction(maxError);
+            default :
+                throw new IllegalArgumentException("Unknown transfer function " + name);
+        }
+    }
+
+    /**
+     * @param names Either one name used for every layer or comma separated name for each layer
+     * @param layers Number of layers that need transfer function
+     * @return Transfer function for each layer
+     */
+    public TransferFunction[] create(String names, int layers) {
+        String[] parts = names.split(",");
+
+        if (parts.length != 1 && parts.length != layers) {
+            throw new IllegalArgumentException("Expected 1 or " + layers + " transfer functions");
+        }
+
+        TransferFunction[] functions = new TransferFunction[layers];
+
+        for (int i = 0; i < layers; i++) {
+            if (parts.length == 1 && i > 0) {
+                functions[i] = functions[0];
+            } else {
+                functions[i] = create(parts[i]);
+            }
+        }
+
+        return functions;
+    }
+
+}